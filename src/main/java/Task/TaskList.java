@@ -3,47 +3,127 @@ package task;
 import error.JimmyTimmyException;
 import ui.Ui;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a collection of tasks in the JimmyTimmy application.
  * <p>
  * Provides methods to add, remove, retrieve, mark/unmark, and search for tasks.
+ * The tasks themselves are held by a {@link TaskStore}. Searches go through a {@link TrigramIndex},
+ * due-date queries through a {@link DueDateIndex}, event queries through an
+ * {@link IntervalTree} and status queries through a {@link StatusIndex}. Each index is built on its first query
+ * and kept up to date as tasks are added, deleted and marked from then on.
+ * </p>
+ * <p>
+ * Every task in the list carries a stable ID, which commands use to find their task again
+ * after other commands have moved it. IDs are kept by the store, which can answer them without
+ * building the task, and are given to tasks when they are loaded (see {@link #assignIds(List)})
+ * or added. Commands find their task through an {@link IdIndex} of positions by ID, built from
+ * the IDs in the store on the first lookup and updated as tasks are added and deleted from then
+ * on, so a task that has moved is found in constant time.
  * </p>
  */
 public class TaskList {
-    private final ArrayList<Task> tasks;
+    private final TaskStore tasks;
+
+    /** Whether a task changing status is replaced by a copy, so that a stored task never changes. */
+    private final boolean isCopiedOnChange;
+
+    /** Index of the trigrams in task descriptions, or {@code null} until the first search. */
+    private TrigramIndex searchIndex;
+
+    /** Index of the pending deadlines by due date, or {@code null} until the first due-date query. */
+    private DueDateIndex dueDateIndex;
+
+    /** Interval tree of the events, or {@code null} until the first event query. */
+    private IntervalTree eventIndex;
+
+    /** Done bitmap and counters, or {@code null} until the first status query. */
+    private StatusIndex statusIndex;
+
+    /** Pending tasks by contents, or {@code null} until the first duplicate check. */
+    private PendingIndex pendingIndex;
+
+    /** Positions of the tasks by ID, or {@code null} until the first lookup by ID. */
+    private IdIndex idIndex;
+
+    /** ID given to the next task that is added without one, or {@code 0} until the first such task. */
+    private long nextId;
+
+    /** Largest ID that must not be given to a new task although no task in the store holds it. */
+    private long reservedId;
 
     /**
-     * Constructs a {@code TaskList} with an existing list of tasks.
+     * Constructs a {@code TaskList} with an existing list of tasks, giving an ID to each task
+     * that has none.
      *
      * @param tasks an {@link ArrayList} of tasks to initialize the list
      */
     public TaskList(ArrayList<Task> tasks) {
+        this(new ArrayTaskStore(assignIds(tasks)));
+    }
+
+    /**
+     * Constructs a {@code TaskList} backed by the given store. Every task in the store must
+     * already have its own ID, as tasks loaded by {@code Storage} do.
+     *
+     * @param tasks the store holding the tasks
+     */
+    public TaskList(TaskStore tasks) {
+        this(tasks, false);
+    }
+
+    /**
+     * Constructs a {@code TaskList} backed by the given store, which may share its tasks with
+     * versions of the list that other code still reads. Every task in the store must already
+     * have its own ID.
+     *
+     * @param tasks            the store holding the tasks
+     * @param isCopiedOnChange whether marking or unmarking a task puts a copy with the new status
+     *                         in its place instead of changing it
+     */
+    TaskList(TaskStore tasks, boolean isCopiedOnChange) {
+        assert tasks != null : "Task store cannot be null";
+
         this.tasks = tasks;
+        this.isCopiedOnChange = isCopiedOnChange;
     }
 
     /**
      * Constructs an empty {@code TaskList}.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(new ArrayList<>());
     }
 
     /**
-     * Adds a task to the list.
+     * Adds a task to the list, giving it an ID if it has none.
      *
      * @param task the task to add
      */
     public void addTask(Task task) {
         assert task != null : "Task cannot be null";
-        
-        tasks.add(task);
+
+        giveId(task);
+        tasks.add(tasks.size(), task);
+        indexTask(task);
+        if (statusIndex != null) {
+            statusIndex.insert(tasks.size() - 1, StatusIndex.typeNumber(TaskStore.typeOf(task)), task.isDone());
+        }
+        if (idIndex != null) {
+            idIndex.put(task.getId(), tasks.size() - 1);
+        }
     }
 
     /**
-     * Adds a task at a specific index in the list.
+     * Adds a task at a specific index in the list, giving it an ID if it has none.
      * Useful for undoing deletions.
      *
      * @param index the index at which to insert the task
@@ -54,7 +134,13 @@ public class TaskList {
         if (index < 0 || index > tasks.size()) {
             throw new IndexOutOfBoundsException("Invalid index for adding task.");
         }
+        giveId(task);
         tasks.add(index, task);
+        indexTask(task);
+        if (statusIndex != null) {
+            statusIndex.insert(index, StatusIndex.typeNumber(TaskStore.typeOf(task)), task.isDone());
+        }
+        repositionIds(index);
     }
 
     /**
@@ -69,7 +155,49 @@ public class TaskList {
         assert index < tasks.size() : "Index must be within task list size";
 
         validateIndex(index);
-        return tasks.remove(index);
+        Task task = tasks.remove(index);
+        unindexTask(task);
+        if (statusIndex != null) {
+            statusIndex.remove(index, StatusIndex.typeNumber(TaskStore.typeOf(task)));
+        }
+        if (idIndex != null) {
+            idIndex.remove(task.getId());
+        }
+        repositionIds(index);
+        return task;
+    }
+
+    /**
+     * Deletes the tasks at the specified indices. The store and the status index remove them
+     * together, so a store that keeps its tasks in an array moves each remaining task once.
+     *
+     * @param indices the indices of the tasks to remove, in ascending order without repeats
+     * @return the removed tasks, in the order of their indices
+     * @throws JimmyTimmyException if an index is invalid, in which case no task is removed
+     */
+    public List<Task> deleteTasks(int[] indices) throws JimmyTimmyException {
+        for (int i = 0; i < indices.length; i++) {
+            assert i == 0 || indices[i - 1] < indices[i] : "Indices must be ascending without repeats";
+
+            validateIndex(indices[i]);
+        }
+        List<Task> removed = tasks.removeAll(indices);
+        int[] types = new int[removed.size()];
+        for (int i = 0; i < types.length; i++) {
+            Task task = removed.get(i);
+            unindexTask(task);
+            types[i] = StatusIndex.typeNumber(TaskStore.typeOf(task));
+        }
+        if (statusIndex != null) {
+            statusIndex.removeAll(indices, types);
+        }
+        if (idIndex != null && indices.length > 0) {
+            for (Task task : removed) {
+                idIndex.remove(task.getId());
+            }
+            repositionIds(indices[0]);
+        }
+        return removed;
     }
 
     /**
@@ -94,8 +222,22 @@ public class TaskList {
      * @throws JimmyTimmyException if the index is invalid
      */
     public Task markTask(int index) throws JimmyTimmyException {
-        Task task = getTask(index);
+        validateIndex(index);
+        Task task = tasks.get(index);
+        if (isCopiedOnChange) {
+            return task.isDone() ? task : replaceWithStatus(index, task, true);
+        }
         task.markAsDone();
+        tasks.set(index, task);
+        if (dueDateIndex != null) {
+            dueDateIndex.remove(task);
+        }
+        if (pendingIndex != null) {
+            pendingIndex.remove(task);
+        }
+        if (statusIndex != null) {
+            statusIndex.setDone(index, StatusIndex.typeNumber(TaskStore.typeOf(task)), true);
+        }
         return task;
     }
     /**
@@ -105,18 +247,82 @@ public class TaskList {
      * @throws JimmyTimmyException if the index is invalid
      */
     public Task unmarkTask(int index) throws JimmyTimmyException {
-        Task task = getTask(index);
+        validateIndex(index);
+        Task task = tasks.get(index);
+        if (isCopiedOnChange) {
+            return task.isDone() ? replaceWithStatus(index, task, false) : task;
+        }
+        boolean wasDone = task.isDone();
         task.markAsNotDone();
+        tasks.set(index, task);
+        if (dueDateIndex != null) {
+            dueDateIndex.add(task);
+        }
+        if (pendingIndex != null && wasDone) {
+            pendingIndex.add(task);
+        }
+        if (statusIndex != null) {
+            statusIndex.setDone(index, StatusIndex.typeNumber(TaskStore.typeOf(task)), false);
+        }
         return task;
     }
 
     /**
      * Returns all tasks in the list.
+     * Depending on the store, the returned list may be read-only.
      *
-     * @return an {@link ArrayList} of tasks
+     * @return a {@link List} of tasks
      */
-    public ArrayList<Task> getTasks() {
-        return tasks;
+    public List<Task> getTasks() {
+        return tasks.asList();
+    }
+
+    /**
+     * Returns a copy of the tasks as they are now, which can be read from another thread.
+     *
+     * @return a read-only {@link List} of tasks
+     */
+    public List<Task> snapshot() {
+        return tasks.snapshot();
+    }
+
+    /**
+     * Returns the ID of the task at the specified index.
+     *
+     * @param index the index of the task
+     * @return the ID of the task
+     * @throws JimmyTimmyException if the index is invalid
+     */
+    public long getTaskId(int index) throws JimmyTimmyException {
+        validateIndex(index);
+        return tasks.idOf(index);
+    }
+
+    /**
+     * Returns the task with the given ID.
+     *
+     * @param id the ID to look up
+     * @return the task, or {@code null} if no task in the list has the ID
+     */
+    public Task findById(long id) {
+        int index = ids().get(id);
+        return index < 0 ? null : tasks.get(index);
+    }
+
+    /**
+     * Returns the index of the task with the given ID. The index the task is expected at is
+     * checked first, and a task that has moved since is found through the index of positions
+     * by ID, so either way it is found in constant time.
+     *
+     * @param id   the ID to look for
+     * @param hint the index the task was last seen at
+     * @return the index of the task, or {@code -1} if no task in the list has the ID
+     */
+    public int indexOfId(long id, int hint) {
+        if (hint >= 0 && hint < tasks.size() && tasks.idOf(hint) == id) {
+            return hint;
+        }
+        return ids().get(id);
     }
 
     /**
@@ -126,13 +332,16 @@ public class TaskList {
      * @throws JimmyTimmyException if the list is empty
      */
     public void printTasks(Ui ui) throws JimmyTimmyException {
-        ui.showTaskList(tasks);
+        ui.showTaskList(getTasks());
     }
 
     /**
      * Searches for tasks whose descriptions contain the specified keyword.
      * <p>
-     * The search is case-insensitive, and all matching tasks are returned in a new list.
+     * The search is case-insensitive and matches anywhere in a description, so {@code milk}
+     * finds {@code oatmilk}. All matching tasks are returned in a new list, in list order.
+     * Stores that can scan their descriptions directly are searched that way instead of through
+     * an index.
      * </p>
      *
      * @param keyword the keyword to search for in task descriptions
@@ -140,13 +349,463 @@ public class TaskList {
      *         returns an empty list if no tasks match
      */
     public ArrayList<Task> findTasks(String keyword) {
-        ArrayList<Task> matches = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
-                matches.add(task);
+        List<Integer> indices = searchIndex == null ? tasks.findContaining(keyword) : null;
+        if (indices != null) {
+            ArrayList<Task> matches = new ArrayList<>(indices.size());
+            for (int index : indices) {
+                matches.add(tasks.get(index));
+            }
+            return matches;
+        }
+        return inListOrder(search().find(keyword));
+    }
+
+    /**
+     * Puts tasks found through an index back in list order, since the index returns them in the
+     * order they were indexed, which changes when a task is reinserted or replaced. The list is
+     * scanned by identity only until every task has been found.
+     *
+     * @param matches the tasks to order, all of which are in the list
+     * @return the tasks in list order
+     */
+    private ArrayList<Task> inListOrder(List<Task> matches) {
+        if (matches.size() < 2) {
+            return new ArrayList<>(matches);
+        }
+        Set<Task> remaining = Collections.newSetFromMap(new IdentityHashMap<>());
+        remaining.addAll(matches);
+        ArrayList<Task> ordered = new ArrayList<>(matches.size());
+        for (int i = 0; i < tasks.size() && !remaining.isEmpty(); i++) {
+            Task task = tasks.get(i);
+            if (remaining.remove(task)) {
+                ordered.add(task);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Returns the deadlines that are not done and are due strictly before the given time.
+     *
+     * @param time the exclusive upper bound
+     * @return the matching deadlines, earliest first
+     */
+    public List<Deadline> findDueBefore(LocalDateTime time) {
+        return dueDates().before(time);
+    }
+
+    /**
+     * Returns the deadlines that are not done and are due within the given times.
+     *
+     * @param from the inclusive lower bound
+     * @param to   the inclusive upper bound
+     * @return the matching deadlines, earliest first
+     */
+    public List<Deadline> findDueBetween(LocalDateTime from, LocalDateTime to) {
+        return dueDates().between(from, to);
+    }
+
+    /**
+     * Returns the deadlines that are not done and are due first.
+     *
+     * @return the deadlines sharing the earliest due date, or an empty list if there are none
+     */
+    public List<Deadline> findNextDue() {
+        return dueDates().next();
+    }
+
+    /**
+     * Returns a task that is not done and has the same type, description and dates as the
+     * given task, other than the task itself. Descriptions are compared as searches compare them.
+     *
+     * @param task the task to compare with
+     * @return a matching pending task, or {@code null} if there is none
+     */
+    public Task findPendingDuplicate(Task task) {
+        return pending().findSame(task);
+    }
+
+    /**
+     * Returns the number of tasks with the given status.
+     *
+     * @param isDone the status to count
+     * @return the number of tasks
+     */
+    public int countTasks(boolean isDone) {
+        return statuses().count(isDone);
+    }
+
+    /**
+     * Returns the number of tasks of the given type and status.
+     *
+     * @param type   the type code ({@code 'T'}, {@code 'D'} or {@code 'E'})
+     * @param isDone the status to count
+     * @return the number of tasks
+     */
+    public int countTasks(char type, boolean isDone) {
+        return statuses().count(StatusIndex.typeNumber(type), isDone);
+    }
+
+    /**
+     * Returns the indices of the tasks with the given status, in list order.
+     * Only the matching positions are visited.
+     *
+     * @param isDone the status to look for
+     * @return the indices of the matching tasks
+     */
+    public List<Integer> findByStatus(boolean isDone) {
+        StatusIndex statuses = statuses();
+        List<Integer> indices = new ArrayList<>();
+        for (int i = statuses.next(0, isDone); i >= 0; i = statuses.next(i + 1, isDone)) {
+            indices.add(i);
+        }
+        return indices;
+    }
+
+    /**
+     * Returns the status index, building it from every task on first use.
+     * Stores that know each task's status and type without reading it are not read in full.
+     *
+     * @return the status index
+     */
+    private StatusIndex statuses() {
+        if (statusIndex == null) {
+            statusIndex = new StatusIndex();
+            for (int i = 0; i < tasks.size(); i++) {
+                statusIndex.insert(i, StatusIndex.typeNumber(tasks.typeOf(i)), tasks.isDone(i));
+            }
+        }
+        return statusIndex;
+    }
+
+    /**
+     * Returns the events running at the given time, including events starting or ending then.
+     *
+     * @param time the time to check
+     * @return the running events, ordered by start
+     */
+    public List<Event> findEventsActiveAt(LocalDateTime time) {
+        return events().overlapping(time, time);
+    }
+
+    /**
+     * Returns the events running at some point within the given times.
+     *
+     * @param from the start of the period
+     * @param to   the end of the period
+     * @return the overlapping events, ordered by start
+     */
+    public List<Event> findEventsOverlapping(LocalDateTime from, LocalDateTime to) {
+        return events().overlapping(from, to);
+    }
+
+    /**
+     * Returns the interval tree of events, building it from every task on first use.
+     *
+     * @return the interval tree of events
+     */
+    private IntervalTree events() {
+        if (eventIndex == null) {
+            eventIndex = new IntervalTree();
+            for (Task task : tasks.asList()) {
+                eventIndex.add(task);
+            }
+        }
+        return eventIndex;
+    }
+
+    /**
+     * Returns the trigram index of task descriptions, building it from every task on first use.
+     *
+     * @return the trigram index
+     */
+    private TrigramIndex search() {
+        if (searchIndex == null) {
+            searchIndex = new TrigramIndex();
+            for (Task task : tasks.asList()) {
+                searchIndex.add(task);
+            }
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Returns the index of pending tasks by contents, building it from every task on first use.
+     *
+     * @return the pending-task index
+     */
+    private PendingIndex pending() {
+        if (pendingIndex == null) {
+            pendingIndex = new PendingIndex();
+            for (Task task : tasks.asList()) {
+                pendingIndex.add(task);
+            }
+        }
+        return pendingIndex;
+    }
+
+    /**
+     * Builds every index that is otherwise built on its first query, so that queries from then
+     * on only read the list and its indexes.
+     */
+    void buildIndexes() {
+        search();
+        dueDates();
+        events();
+        statuses();
+        pending();
+        ids();
+    }
+
+    /**
+     * Returns the index of positions by ID, building it from the IDs held by the store on first
+     * use. Stores that do not keep every task in memory answer the IDs without reading the tasks.
+     *
+     * @return the index of positions by ID
+     */
+    private IdIndex ids() {
+        if (idIndex == null) {
+            idIndex = new IdIndex(tasks.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                idIndex.put(tasks.idOf(i), i);
+            }
+        }
+        return idIndex;
+    }
+
+    /**
+     * Updates the positions by ID of the tasks from the given position on, after tasks have been
+     * inserted or removed there, if the index has been built.
+     *
+     * @param from the first position whose task may have moved
+     */
+    private void repositionIds(int from) {
+        if (idIndex != null) {
+            for (int i = from; i < tasks.size(); i++) {
+                idIndex.put(tasks.idOf(i), i);
+            }
+        }
+    }
+
+    /**
+     * Updates every index that has been built after the store has gone back or forward to another
+     * version, given the tasks the two versions do not share. Every removed task is taken out of
+     * the indexes before any added task is put in, since a task that was marked or unmarked is
+     * removed and added again with the same ID.
+     *
+     * @param changes the changes from the version the store held to the one it holds now
+     */
+    void reindex(PersistentTaskStore.Changes changes) {
+        for (Task task : changes.removed) {
+            unindexTask(task);
+        }
+        for (Task task : changes.added) {
+            indexTask(task);
+        }
+        if (idIndex != null) {
+            for (Task task : changes.removed) {
+                idIndex.remove(task.getId());
+            }
+            int from = changes.removedAt.length > 0 ? changes.removedAt[0] : tasks.size();
+            repositionIds(changes.addedAt.length > 0 ? Math.min(from, changes.addedAt[0]) : from);
+        }
+        if (statusIndex != null) {
+            for (int i = changes.removed.length - 1; i >= 0; i--) {
+                Task task = changes.removed[i];
+                statusIndex.remove(changes.removedAt[i], StatusIndex.typeNumber(TaskStore.typeOf(task)));
+            }
+            for (int i = 0; i < changes.added.length; i++) {
+                Task task = changes.added[i];
+                int type = StatusIndex.typeNumber(TaskStore.typeOf(task));
+                statusIndex.insert(changes.addedAt[i], type, task.isDone());
+            }
+        }
+    }
+
+    /**
+     * Returns the due-date index, building it from every task on first use.
+     *
+     * @return the due-date index
+     */
+    private DueDateIndex dueDates() {
+        if (dueDateIndex == null) {
+            dueDateIndex = new DueDateIndex();
+            for (Task task : tasks.asList()) {
+                dueDateIndex.add(task);
+            }
+        }
+        return dueDateIndex;
+    }
+
+    /**
+     * Keeps every ID up to the given one from being given to a task added from now on, such as
+     * the IDs of deleted tasks that commands in the history still refer to.
+     *
+     * @param lastId the largest ID to keep
+     */
+    public void reserveIds(long lastId) {
+        if (nextId == 0) {
+            reservedId = Math.max(reservedId, lastId);
+        } else {
+            nextId = Math.max(nextId, lastId + 1);
+        }
+    }
+
+    /**
+     * Gives a task a new ID if it has none. The next free ID is found from the IDs held by the
+     * store the first time it is needed.
+     *
+     * @param task the task about to be added
+     */
+    private void giveId(Task task) {
+        if (nextId == 0) {
+            nextId = reservedId + 1;
+            for (int i = 0; i < tasks.size(); i++) {
+                nextId = Math.max(nextId, tasks.idOf(i) + 1);
+            }
+        }
+        if (task.getId() == 0) {
+            task.setId(nextId++);
+        } else {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+    }
+
+    /**
+     * Gives a new ID to every task that has none or shares its ID with an earlier task,
+     * numbering them in order after the largest ID in use.
+     *
+     * @param tasks the tasks, in list order
+     * @param <T>   the type of the list
+     * @return the same list
+     */
+    public static <T extends List<Task>> T assignIds(T tasks) {
+        long[] ids = new long[tasks.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tasks.get(i).getId();
+        }
+        if (assignIds(ids, ids.length)) {
+            for (int i = 0; i < ids.length; i++) {
+                tasks.get(i).setId(ids[i]);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Gives a new ID to every entry that is {@code 0} or repeats an earlier entry, numbering them
+     * in order after the largest ID in use. Used to assign IDs without building the tasks.
+     *
+     * @param ids   the IDs of the tasks in list order, updated in place
+     * @param count the number of IDs in use
+     * @return {@code true} if any ID was changed
+     */
+    public static boolean assignIds(long[] ids, int count) {
+        long[] sorted = Arrays.copyOf(ids, count);
+        Arrays.sort(sorted);
+        boolean isComplete = count == 0 || sorted[0] > 0;
+        for (int i = 1; i < count && isComplete; i++) {
+            isComplete = sorted[i] != sorted[i - 1];
+        }
+        if (isComplete) {
+            return false;
+        }
+
+        long nextId = count == 0 ? 1 : Math.max(1, sorted[count - 1] + 1);
+        HashSet<Long> seen = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            if (ids[i] <= 0 || !seen.add(ids[i])) {
+                ids[i] = nextId++;
             }
         }
-        return matches;
+        return true;
+    }
+
+    /**
+     * Puts a copy of a task with the given status in its place, leaving the task itself as it is
+     * for the versions of the list that still hold it. The copy is given its status before it is
+     * stored, so it never changes once another thread can see it.
+     *
+     * @param index  the index of the task
+     * @param task   the task at that index
+     * @param isDone the new status
+     * @return the copy
+     */
+    private Task replaceWithStatus(int index, Task task, boolean isDone) {
+        Task copy = copyOf(task);
+        if (isDone) {
+            copy.markAsDone();
+        } else {
+            copy.markAsNotDone();
+        }
+        unindexTask(task);
+        tasks.set(index, copy);
+        indexTask(copy);
+        if (statusIndex != null) {
+            statusIndex.setDone(index, StatusIndex.typeNumber(TaskStore.typeOf(copy)), isDone);
+        }
+        return copy;
+    }
+
+    private static Task copyOf(Task task) {
+        Task copy;
+        if (task instanceof Deadline) {
+            copy = new Deadline(task.getDescription(), ((Deadline) task).getDueDate());
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            copy = new Event(task.getDescription(), event.getStart(), event.getEnd());
+        } else if (task instanceof ToDo) {
+            copy = new ToDo(task.getDescription());
+        } else {
+            copy = new Task(task.getDescription());
+        }
+        if (task.isDone()) {
+            copy.markAsDone();
+        }
+        if (task.getId() > 0) {
+            copy.setId(task.getId());
+        }
+        return copy;
+    }
+
+    /**
+     * Adds a task to every index that has been built.
+     *
+     * @param task the added task
+     */
+    private void indexTask(Task task) {
+        if (searchIndex != null) {
+            searchIndex.add(task);
+        }
+        if (dueDateIndex != null) {
+            dueDateIndex.add(task);
+        }
+        if (eventIndex != null) {
+            eventIndex.add(task);
+        }
+        if (pendingIndex != null) {
+            pendingIndex.add(task);
+        }
+    }
+
+    /**
+     * Removes a task from every index that has been built.
+     *
+     * @param task the removed task
+     */
+    private void unindexTask(Task task) {
+        if (searchIndex != null) {
+            searchIndex.remove(task);
+        }
+        if (dueDateIndex != null) {
+            dueDateIndex.remove(task);
+        }
+        if (eventIndex != null) {
+            eventIndex.remove(task);
+        }
+        if (pendingIndex != null) {
+            pendingIndex.remove(task);
+        }
     }
 
     /**
@@ -163,7 +822,7 @@ public class TaskList {
 
     @Override
     public String toString() {
-        if (tasks.isEmpty()) {
+        if (tasks.size() == 0) {
             return "Your task list is empty!";
         }
         StringBuilder sb = new StringBuilder();
@@ -188,6 +847,6 @@ public class TaskList {
      * @return {@code true} if the list has no tasks, {@code false} otherwise
      */
     public boolean isEmpty() {
-        return tasks.isEmpty();
+        return tasks.size() == 0;
     }
 }
@@ -1,19 +1,24 @@
 package app;
 
 import command.Command;
-import command.RedoCommand;
-import command.UndoCommand;
+import command.History;
+import command.Revision;
 import command.UndoableCommand;
 import parser.Parser;
+import task.ColumnarTaskStore;
+import task.PersistentTaskStore;
 import task.Task;
 import task.TaskList;
+import task.VersionedTaskList;
+import storage.Durability;
 import storage.Storage;
 import error.JimmyTimmyException;
 import ui.Ui;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Stack;
 
 /**
  * The {@code JimmyTimmy} class represents the main application that manages tasks through
@@ -22,13 +27,21 @@ import java.util.Stack;
  */
 public class JimmyTimmy {
 
+    /** Size of the save file from which tasks are read from disk only as they are needed. */
+    private static final long LAZY_LOAD_BYTES = 64L * 1024 * 1024;
+
+    /** Number of pages of tasks kept in memory when loading lazily. */
+    private static final int LAZY_CACHE_PAGES = 64;
+
+    /** Number of loaded tasks from which they are kept in a {@link ColumnarTaskStore}. */
+    private static final int COLUMNAR_STORE_TASKS = 1_000_000;
+
     private Storage storage;
     private TaskList tasks;
     private Ui ui;
     private String filePath;
 
-    private Stack<UndoableCommand> undoStack = new Stack<>();
-    private Stack<UndoableCommand> redoStack = new Stack<>();
+    private History history = new History();
 
     /**
      * Creates a new {@code JimmyTimmy} application instance.
@@ -46,18 +59,41 @@ public class JimmyTimmy {
 
     /**
      * Initializes storage and tasks from file.
+     * Large save files are opened lazily, so that startup does not wait for every task to be parsed.
+     * Lists that are loaded eagerly are kept in a tree that keeps its earlier versions, so that
+     * inserting and deleting near the top of the list does not shift every later task, and
+     * any number of commands can be undone at once. The longest lists are kept
+     * in columns instead, which take about a third of the memory, with their descriptions
+     * outside the Java heap.
+     * The commands that could be undone and redone when the program last ran are loaded as well.
      * Must be called before run() or getResponse().
      */
     public void init() {
         assert filePath != null : "File path must not be null before init";
-        storage = new Storage(filePath);
+        storage = new Storage(filePath, true);
 
         try {
-            ArrayList<Task> loadedTasks = storage.load();
-            tasks = new TaskList(loadedTasks);
+            storage.setDurability(Durability.BATCHED_FSYNC);
+            if (new File(filePath).length() >= LAZY_LOAD_BYTES) {
+                tasks = new TaskList(storage.loadLazily(LAZY_CACHE_PAGES));
+            } else {
+                ArrayList<Task> loadedTasks = storage.load();
+                if (loadedTasks.size() >= COLUMNAR_STORE_TASKS) {
+                    tasks = new TaskList(new ColumnarTaskStore(loadedTasks, true));
+                } else {
+                    tasks = new VersionedTaskList(loadedTasks);
+                }
+            }
         } catch (IOException e) {
             ui.showLoadingError();
-            tasks = new TaskList();
+            tasks = new VersionedTaskList();
+        }
+
+        try {
+            history = History.load(storage.getHistoryLog(), History.DEFAULT_MAX_DEPTH, History.DEFAULT_MAX_BYTES);
+            tasks.reserveIds(history.lastTaskId());
+        } catch (IOException e) {
+            System.out.println("Failed to load undo history: " + e.getMessage());
         }
     }
 
@@ -77,19 +113,16 @@ public class JimmyTimmy {
                 if (input.isBlank()) continue;
                 ui.showLine();
 
-                Command command = Parser.parse(input, undoStack, redoStack);
-                String result = command.execute(tasks, ui, storage);
+                Command command = Parser.parse(input, history);
+                String result = execute(command);
                 ui.showMessage(result);
 
-                if (command instanceof UndoableCommand && !(command instanceof UndoCommand) && !(command instanceof RedoCommand)) {
-                    undoStack.push((UndoableCommand) command);
-                    redoStack.clear();
-                }
-
                 isExit = command.isExit();
 
             } catch (JimmyTimmyException | IOException e) {
                 ui.showError(e.getMessage());
+            } catch (UncheckedIOException e) {
+                ui.showError(e.getCause().getMessage());
             } finally {
                 ui.showLine();
             }
@@ -102,20 +135,36 @@ public class JimmyTimmy {
      */
     public String getResponse(String input) {
         try {
-            Command command = Parser.parse(input, undoStack, redoStack);
-            String result = command.execute(tasks, ui, storage);
-
-            if (command instanceof UndoableCommand && !(command instanceof UndoCommand) && !(command instanceof RedoCommand)) {
-                undoStack.push((UndoableCommand) command);
-                redoStack.clear();
-            }
-
-            return result;
+            Command command = Parser.parse(input, history);
+            return execute(command);
 
         } catch (JimmyTimmyException | IOException e) {
             return "Error: " + e.getMessage();
+        } catch (UncheckedIOException e) {
+            return "Error: " + e.getCause().getMessage();
         }
     }
+    /**
+     * Executes a command, recording it for undo along with the versions of the task list
+     * before and after it if it can be undone and changed the list.
+     *
+     * @param command the command to execute
+     * @return the response to show the user
+     */
+    private String execute(Command command) throws JimmyTimmyException, IOException {
+        PersistentTaskStore.Version before = versionOf(tasks);
+        String result = command.execute(tasks, ui, storage);
+
+        if (command instanceof UndoableCommand && ((UndoableCommand) command).hasChanges()) {
+            history.record(new Revision((UndoableCommand) command, before, versionOf(tasks)));
+        }
+        return result;
+    }
+
+    private static PersistentTaskStore.Version versionOf(TaskList tasks) {
+        return tasks instanceof VersionedTaskList ? ((VersionedTaskList) tasks).version() : null;
+    }
+
     /**
      * The entry point for the application.
      * Creates a new (@code JimmyTimmy) instance with default save file
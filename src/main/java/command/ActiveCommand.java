@@ -0,0 +1,42 @@
+package command;
+
+import storage.Storage;
+import task.Event;
+import task.TaskList;
+import ui.Ui;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Command to list the promotions running at a time, or at some point during a period.
+ */
+public class ActiveCommand implements Command {
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    /**
+     * Creates a command listing the promotions running at some point within the given times.
+     * Pass the same time twice to list the promotions running at that time.
+     *
+     * @param from the start of the period
+     * @param to   the end of the period
+     */
+    public ActiveCommand(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) {
+        List<Event> matches = tasks.findEventsOverlapping(from, to);
+        if (matches.isEmpty()) {
+            return "No promotions are running then!";
+        }
+        StringBuilder sb = new StringBuilder("Here are the promotions running then:\n");
+        for (int i = 0; i < matches.size(); i++) {
+            sb.append((i + 1)).append(". ").append(matches.get(i)).append("\n");
+        }
+        return sb.toString().trim();
+    }
+}
@@ -2,34 +2,111 @@ package command;
 
 import error.JimmyTimmyException;
 import storage.Storage;
+import task.Event;
 import task.Task;
 import task.TaskList;
 import ui.Ui;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Command to add a new task to the task list.
  */
 public class AddCommand implements UndoableCommand {
+    /** Tag of an encoded add command. */
+    static final String CODE = "A";
+
     private final Task task;
 
+    /** Index the task was added at. */
+    private int index = -1;
+
+    /**
+     * The task as it was when added, as a task line, or {@code null} until it is added. The task
+     * itself may be marked later on, and is then no longer what this command added.
+     */
+    private String addedLine;
+
     public AddCommand(Task task) {
         this.task = task;
     }
 
+    /**
+     * Rebuilds an add command that has been executed, as decoded by {@link History}.
+     *
+     * @param task  the added task
+     * @param index the index the task was added at
+     */
+    AddCommand(Task task, int index) {
+        this.task = task;
+        this.index = index;
+        this.addedLine = Storage.formatTask(task);
+    }
+
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) throws IOException {
         tasks.addTask(task);
-        storage.save(tasks.getTasks());
+        index = tasks.size() - 1;
+        addedLine = Storage.formatTask(task);
+        storage.recordAdd(tasks, index, task);
         return "I've added this item:\n  " + task +
-                "\nNow you have " + tasks.size() + " items in your cart.";
+                "\nNow you have " + tasks.size() + " items in your cart." + describeDuplicate(tasks)
+                + describeOverlaps(tasks);
+    }
+
+    /**
+     * Describes an item still to be bought that is the same as the added task, if there is one.
+     *
+     * @param tasks the task list after the task was added
+     * @return a note naming the duplicate, or an empty string if there is none
+     */
+    private String describeDuplicate(TaskList tasks) {
+        Task duplicate = tasks.findPendingDuplicate(task);
+        return duplicate == null ? "" : "\nYou already have this in your cart:\n  " + duplicate;
+    }
+
+    /**
+     * Describes the other promotions running at the same time as the added task, if it is an event.
+     *
+     * @param tasks the task list after the task was added
+     * @return a note listing the overlapping promotions, or an empty string if there are none
+     */
+    private String describeOverlaps(TaskList tasks) {
+        if (!(task instanceof Event)) {
+            return "";
+        }
+        Event event = (Event) task;
+        List<Event> overlaps = tasks.findEventsOverlapping(event.getStart(), event.getEnd());
+        overlaps.removeIf(other -> other == task);
+        if (overlaps.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("\nIt overlaps with these promotions:");
+        for (Event other : overlaps) {
+            sb.append("\n  ").append(other);
+        }
+        return sb.toString();
     }
 
     @Override
     public void undo(TaskList tasks, Ui ui, Storage storage) throws JimmyTimmyException, IOException {
-        tasks.deleteTask(tasks.getTasks().indexOf(task));
-        storage.save(tasks.getTasks());
+        int position = tasks.indexOfId(task.getId(), index);
+        if (position < 0) {
+            throw new JimmyTimmyException("That item is no longer in your cart.");
+        }
+        tasks.deleteTask(position);
+        storage.recordDelete(tasks, position, task);
         ui.showMessage("Returned to shelves: " + task);
     }
+
+    @Override
+    public String encode() {
+        return CODE + " | " + index + " | " + addedLine;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return UndoableCommand.super.estimateBytes() + Revision.estimateBytes(task);
+    }
 }
@@ -0,0 +1,130 @@
+package command;
+
+import error.JimmyTimmyException;
+import storage.Storage;
+import task.Task;
+import task.TaskList;
+import ui.Ui;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Command to delete several tasks at once, such as {@code delete 5,9,12-40}.
+ * <p>
+ * The tasks are removed from the last to the first, so that no removal moves a task still to be
+ * removed, and the removals are persisted as one batch. The whole command is undone as a single
+ * step, putting every task back where it was.
+ * </p>
+ */
+public class BulkDeleteCommand implements UndoableCommand {
+    /** Tag of an encoded bulk delete command. */
+    static final String CODE = "BD";
+
+    /** The selected tasks, or {@code null} for a command decoded by {@link History}. */
+    private final ItemSelection selection;
+
+    /** Indices the tasks were removed from, in ascending order. */
+    private int[] indices = new int[0];
+
+    /** The removed tasks, in the order of their indices. */
+    private List<Task> removedTasks = List.of();
+
+    public BulkDeleteCommand(ItemSelection selection) {
+        this.selection = selection;
+    }
+
+    /**
+     * Rebuilds a bulk delete command that has been executed, as decoded by {@link History}.
+     *
+     * @param indices      the indices the tasks were removed from, in ascending order
+     * @param removedTasks the removed tasks, in the order of their indices
+     */
+    BulkDeleteCommand(int[] indices, List<Task> removedTasks) {
+        assert indices.length == removedTasks.size() : "Every index needs its task";
+
+        this.selection = null;
+        this.indices = indices;
+        this.removedTasks = removedTasks;
+    }
+
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage)
+            throws IOException, JimmyTimmyException {
+        if (selection != null) {
+            indices = selection.resolve(tasks.size());
+        }
+        removedTasks = tasks.deleteTasks(indices);
+        recordDeletes(tasks, storage);
+        String items = describe(indices.length);
+        return "I've returned " + items + " to the shelves.\nNow you have " + tasks.size()
+                + " items in your cart.";
+    }
+
+    @Override
+    public void undo(TaskList tasks, Ui ui, Storage storage) throws JimmyTimmyException, IOException {
+        int[] positions = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            positions[i] = Math.min(indices[i], tasks.size());
+            tasks.addTaskAt(positions[i], removedTasks.get(i));
+        }
+        recordAdds(tasks, storage, positions);
+        ui.showMessage("Returned " + describe(indices.length) + " to your cart.");
+    }
+
+    @Override
+    public boolean hasChanges() {
+        return !removedTasks.isEmpty();
+    }
+
+    @Override
+    public String encode() {
+        StringBuilder sb = new StringBuilder(CODE);
+        for (int i = 0; i < indices.length; i++) {
+            String line = Storage.formatTask(removedTasks.get(i));
+            sb.append(" | ").append(indices[i]).append(" | ").append(line.length()).append(" | ").append(line);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public long estimateBytes() {
+        long bytes = UndoableCommand.super.estimateBytes();
+        for (Task task : removedTasks) {
+            bytes += 4 + Revision.estimateBytes(task);
+        }
+        return bytes;
+    }
+
+    /**
+     * Persists the removals as one batch, from the last task to the first.
+     */
+    private void recordDeletes(TaskList tasks, Storage storage) throws IOException {
+        storage.beginBatch();
+        try {
+            for (int i = indices.length - 1; i >= 0; i--) {
+                storage.recordDelete(tasks, indices[i], removedTasks.get(i));
+            }
+        } finally {
+            storage.endBatch(tasks);
+        }
+    }
+
+    /**
+     * Persists putting the tasks back at the given indices as one batch, first to last.
+     */
+    private void recordAdds(TaskList tasks, Storage storage, int[] positions) throws IOException {
+        storage.beginBatch();
+        try {
+            for (int i = 0; i < positions.length; i++) {
+                storage.recordAdd(tasks, positions[i], removedTasks.get(i));
+            }
+        } finally {
+            storage.endBatch(tasks);
+        }
+    }
+
+    private static String describe(int count) {
+        return count == 1 ? "1 item" : count + " items";
+    }
+}
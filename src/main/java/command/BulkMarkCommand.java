@@ -0,0 +1,140 @@
+package command;
+
+import error.JimmyTimmyException;
+import storage.Storage;
+import task.TaskList;
+import ui.Ui;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Command to mark or unmark several tasks at once, such as {@code mark 1-200} or {@code unmark all}.
+ * <p>
+ * Every selected task is changed in a single pass over the list, and the changes are persisted
+ * as one batch. Only the tasks whose status actually changed are remembered, and the whole
+ * command is undone as a single step.
+ * </p>
+ */
+public class BulkMarkCommand implements UndoableCommand {
+    /** Tag of an encoded bulk mark command. */
+    static final String CODE = "BM";
+
+    /** The selected tasks, or {@code null} for a command decoded by {@link History}. */
+    private final ItemSelection selection;
+    private final boolean isMark;
+
+    /** Indices of the tasks whose status was changed, in ascending order. */
+    private int[] changed = new int[0];
+
+    /** IDs of the tasks whose status was changed, used to find them again on undo. */
+    private long[] changedIds = new long[0];
+
+    public BulkMarkCommand(ItemSelection selection, boolean isMark) {
+        this.selection = selection;
+        this.isMark = isMark;
+    }
+
+    /**
+     * Rebuilds a bulk mark command that has been executed, as decoded by {@link History}.
+     *
+     * @param isMark     whether the tasks were marked rather than unmarked
+     * @param changed    the indices of the tasks whose status was changed, in ascending order
+     * @param changedIds the IDs of those tasks
+     */
+    BulkMarkCommand(boolean isMark, int[] changed, long[] changedIds) {
+        this.selection = null;
+        this.isMark = isMark;
+        this.changed = changed;
+        this.changedIds = changedIds;
+    }
+
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage)
+            throws IOException, JimmyTimmyException {
+        int[] indices = selection == null ? changed : selection.resolve(tasks.size());
+        int[] toChange = new int[indices.length];
+        long[] ids = new long[indices.length];
+        int count = 0;
+        for (int index : indices) {
+            if (tasks.getTask(index).isDone() != isMark) {
+                ids[count] = tasks.getTaskId(index);
+                toChange[count++] = index;
+            }
+        }
+        changed = Arrays.copyOf(toChange, count);
+        changedIds = Arrays.copyOf(ids, count);
+
+        setStatus(tasks, storage, changed, isMark);
+        String items = describe(changed.length);
+        return isMark
+                ? "Nice! I've checked " + items + " out of your cart."
+                : "Aw, I've returned " + items + " to the cart.";
+    }
+
+    @Override
+    public boolean hasChanges() {
+        return changed.length > 0;
+    }
+
+    @Override
+    public void undo(TaskList tasks, Ui ui, Storage storage) throws JimmyTimmyException, IOException {
+        int[] positions = new int[changed.length];
+        for (int i = 0; i < changed.length; i++) {
+            positions[i] = tasks.indexOfId(changedIds[i], changed[i]);
+            if (positions[i] < 0) {
+                throw new JimmyTimmyException("That item is no longer in your cart.");
+            }
+        }
+        setStatus(tasks, storage, positions, !isMark);
+        ui.showMessage("I've put " + describe(changed.length) + " back where they belonged.");
+    }
+
+    @Override
+    public String encode() {
+        StringBuilder sb = new StringBuilder(CODE).append(" | ").append(isMark ? "1" : "0").append(" | ");
+        for (int i = 0; i < changed.length; i++) {
+            sb.append(i == 0 ? "" : ",").append(changed[i]).append(':').append(changedIds[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public long estimateBytes() {
+        return UndoableCommand.super.estimateBytes() + 12L * changed.length;
+    }
+
+    /**
+     * Gives the tasks at the given indices the given status and persists the changes as one batch.
+     */
+    private static void setStatus(TaskList tasks, Storage storage, int[] indices, boolean isDone)
+            throws JimmyTimmyException, IOException {
+        for (int index : indices) {
+            if (isDone) {
+                tasks.markTask(index);
+            } else {
+                tasks.unmarkTask(index);
+            }
+        }
+        recordStatus(tasks, storage, indices, isDone);
+    }
+
+    /**
+     * Persists the status of the tasks at the given indices as one batch.
+     */
+    private static void recordStatus(TaskList tasks, Storage storage, int[] indices, boolean isDone)
+            throws IOException {
+        storage.beginBatch();
+        try {
+            for (int index : indices) {
+                storage.recordMark(tasks, index, isDone);
+            }
+        } finally {
+            storage.endBatch(tasks);
+        }
+    }
+
+    private static String describe(int count) {
+        return count == 1 ? "1 item" : count + " items";
+    }
+}
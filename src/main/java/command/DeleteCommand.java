@@ -10,20 +10,50 @@ import java.io.IOException;
 
 /**
  * Command to delete a task from the task list.
+ * <p>
+ * The IDs of the tasks next to the deleted one are remembered, so that undoing puts the task
+ * back between the same tasks even after other commands have moved them.
+ * </p>
  */
 public class DeleteCommand implements UndoableCommand {
+    /** Tag of an encoded delete command. */
+    static final String CODE = "D";
+
     private final int index;
     private Task removedTask;
 
+    /** ID of the task before the deleted one, or {@code 0} if there was none or it is not known. */
+    private long previousId;
+
+    /** ID of the task after the deleted one, or {@code 0} if there was none or it is not known. */
+    private long nextId;
+
     public DeleteCommand(int index) {
         this.index = index;
     }
 
+    /**
+     * Rebuilds a delete command that has been executed, as decoded by {@link History}.
+     *
+     * @param index       the index the task was deleted from
+     * @param removedTask the deleted task
+     * @param previousId  the ID of the task before it, or {@code 0}
+     * @param nextId      the ID of the task after it, or {@code 0}
+     */
+    DeleteCommand(int index, Task removedTask, long previousId, long nextId) {
+        this.index = index;
+        this.removedTask = removedTask;
+        this.previousId = previousId;
+        this.nextId = nextId;
+    }
+
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage)
             throws IOException, JimmyTimmyException {
         removedTask = tasks.deleteTask(index);
-        storage.save(tasks.getTasks());
+        previousId = index > 0 ? tasks.getTaskId(index - 1) : 0;
+        nextId = index < tasks.size() ? tasks.getTaskId(index) : 0;
+        storage.recordDelete(tasks, index, removedTask);
         return "I've returned this item to the shelves:\n  " + removedTask +
                 "\nNow you have " + tasks.size() + " items in your cart.";
     }
@@ -33,6 +63,40 @@ public class DeleteCommand implements UndoableCommand {
         if (removedTask == null) {
             throw new JimmyTimmyException("No items to return.");
         }
-        tasks.addTaskAt(index, removedTask);
-        storage.save(tasks.getTasks());
-    }}
+        int position = positionToRestore(tasks);
+        tasks.addTaskAt(position, removedTask);
+        storage.recordAdd(tasks, position, removedTask);
+    }
+
+    /**
+     * Finds where the deleted task goes back: before the task that followed it, or else after
+     * the task that preceded it, found by their IDs. If neither is still in the list, the task
+     * goes back at the index it was deleted from, or at the end if the list is shorter now.
+     *
+     * @param tasks the task list
+     * @return the index to put the task back at
+     */
+    private int positionToRestore(TaskList tasks) {
+        int next = nextId == 0 ? -1 : tasks.indexOfId(nextId, index);
+        if (next >= 0) {
+            return next;
+        }
+        int previous = previousId == 0 ? -1 : tasks.indexOfId(previousId, index - 1);
+        if (previous >= 0) {
+            return previous + 1;
+        }
+        return Math.min(index, tasks.size());
+    }
+
+    @Override
+    public String encode() {
+        return CODE + " | " + index + " | " + previousId + " | " + nextId + " | "
+                + Storage.formatTask(removedTask);
+    }
+
+    @Override
+    public long estimateBytes() {
+        long bytes = UndoableCommand.super.estimateBytes();
+        return removedTask == null ? bytes : bytes + Revision.estimateBytes(removedTask);
+    }
+}
@@ -0,0 +1,44 @@
+package command;
+
+import storage.Storage;
+import task.Deadline;
+import task.TaskList;
+import ui.Ui;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Command to list the unpurchased items with an expiry date before a time, or within a period.
+ */
+public class DueCommand implements Command {
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    /**
+     * Creates a command listing the items expiring within a period, or before a time
+     * if {@code from} is {@code null}.
+     *
+     * @param from the start of the period (inclusive), or {@code null} for no start
+     * @param to   the end of the period, inclusive if {@code from} is given and exclusive otherwise
+     */
+    public DueCommand(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) {
+        List<Deadline> matches = from == null
+                ? tasks.findDueBefore(to)
+                : tasks.findDueBetween(from, to);
+        if (matches.isEmpty()) {
+            return "Nothing in your cart expires then!";
+        }
+        StringBuilder sb = new StringBuilder("Here are the items expiring then:\n");
+        for (int i = 0; i < matches.size(); i++) {
+            sb.append((i + 1)).append(". ").append(matches.get(i)).append("\n");
+        }
+        return sb.toString().trim();
+    }
+}
@@ -4,12 +4,16 @@ import storage.Storage;
 import task.TaskList;
 import ui.Ui;
 
+import java.io.IOException;
+
 /**
  * Command to exit the program.
+ * Waits for any pending writes so that no changes are lost on exit.
  */
 public class ExitCommand implements Command {
     @Override
-    public String execute(TaskList tasks, Ui ui, Storage storage) {
+    public String execute(TaskList tasks, Ui ui, Storage storage) throws IOException {
+        storage.flush();
         return "Bye. Hope to see you again soon!";
     }
 
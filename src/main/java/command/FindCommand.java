@@ -0,0 +1,32 @@
+package command;
+
+import storage.Storage;
+import task.Task;
+import task.TaskList;
+import ui.Ui;
+
+import java.util.ArrayList;
+
+/**
+ * Command to find tasks whose descriptions contain a keyword.
+ */
+public class FindCommand implements Command {
+    private final String keyword;
+
+    public FindCommand(String keyword) {
+        this.keyword = keyword;
+    }
+
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) {
+        ArrayList<Task> matches = tasks.findTasks(keyword);
+        if (matches.isEmpty()) {
+            return "No matching item found!";
+        }
+        StringBuilder sb = new StringBuilder("Here are the matching items in your cart:\n");
+        for (int i = 0; i < matches.size(); i++) {
+            sb.append((i + 1)).append(". ").append(matches.get(i)).append("\n");
+        }
+        return sb.toString().trim();
+    }
+}
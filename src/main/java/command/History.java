@@ -0,0 +1,428 @@
+package command;
+
+import storage.HistoryLog;
+import storage.Storage;
+import task.Task;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The commands that can be undone and redone, kept within a number of commands and an
+ * approximate number of bytes.
+ * <p>
+ * The revisions are held in a ring buffer, oldest first: the revisions that can be undone,
+ * followed by those that can be redone. Recording a new revision drops the ones that can be
+ * redone, and then drops the oldest revisions until the history fits its limits again, so however
+ * long a session runs the history never holds more than its limits allow. The latest revision
+ * is always kept, even if it is larger than the byte limit by itself.
+ * </p>
+ * <p>
+ * A history {@link #load(HistoryLog, int, long) loaded} from a {@link HistoryLog} appends every
+ * command recorded, undone or redone to the log, so that it can be loaded again in a later run.
+ * Commands loaded from the log are undone and redone by running them.
+ * </p>
+ * <p>
+ * The history is not synchronized, and must only be used by the thread running the commands.
+ * </p>
+ */
+public class History {
+    /** Default largest number of revisions kept. */
+    public static final int DEFAULT_MAX_DEPTH = 10_000;
+
+    /** Default largest approximate number of bytes kept alive by the revisions. */
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    /** Tag in front of an encoded command recorded in the log. */
+    private static final String RECORD = "C";
+
+    /** Log record undoing the latest command. */
+    private static final String UNDO = "U";
+
+    /** Log record redoing the latest undone command. */
+    private static final String REDO = "R";
+
+    /** Number of log records beyond twice the commands held from which the log is rewritten. */
+    private static final int LOG_SLACK = 1000;
+
+    private final Revision[] revisions;
+    private final long[] sizes;
+    private final long maxBytes;
+
+    /** Position in the buffer of the oldest revision. */
+    private int first;
+
+    /** Number of revisions that can be undone. */
+    private int undoCount;
+
+    /** Number of revisions that can be redone, held after those that can be undone. */
+    private int redoCount;
+
+    /** Approximate number of bytes kept alive by the revisions held. */
+    private long footprint;
+
+    /** Log every change is appended to, or {@code null} if the history is not kept. */
+    private HistoryLog log;
+
+    /** Largest task ID referred to by a command loaded from the log. */
+    private long lastTaskId;
+
+    /**
+     * Constructs an empty history with the default limits.
+     */
+    public History() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs an empty history.
+     *
+     * @param maxDepth the largest number of revisions to keep, which must be positive
+     * @param maxBytes the largest approximate number of bytes for the revisions to keep alive
+     */
+    public History(int maxDepth, long maxBytes) {
+        assert maxDepth > 0 : "History depth must be positive";
+
+        this.revisions = new Revision[maxDepth];
+        this.sizes = new long[maxDepth];
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Loads a history from its log, and keeps appending to the log from then on. The log is
+     * rewritten with just the commands held.
+     *
+     * @param log      the log to load and append to
+     * @param maxDepth the largest number of revisions to keep, which must be positive
+     * @param maxBytes the largest approximate number of bytes for the revisions to keep alive
+     * @return the loaded history
+     * @throws IOException if the log cannot be read or rewritten
+     */
+    public static History load(HistoryLog log, int maxDepth, long maxBytes) throws IOException {
+        History history = new History(maxDepth, maxBytes);
+        for (String record : log.load()) {
+            if (!history.replay(record)) {
+                System.out.println("Discarding history from record: " + record);
+                break;
+            }
+        }
+        history.log = log;
+        history.compactLog();
+        return history;
+    }
+
+    /**
+     * Returns the largest task ID referred to by the commands loaded from the log, which tasks
+     * added from then on must not be given, so that undoing and redoing finds the right tasks.
+     *
+     * @return the largest ID, or {@code 0} if no command refers to a task
+     */
+    public long lastTaskId() {
+        return lastTaskId;
+    }
+
+    /**
+     * Records an executed command as the latest that can be undone. The commands that could be
+     * redone are dropped, followed by the oldest commands while the history is over its limits.
+     *
+     * @param revision the executed command
+     * @throws IOException if the change cannot be appended to the log
+     */
+    public void record(Revision revision) throws IOException {
+        add(revision);
+        appendToLog(RECORD + " | " + revision.getCommand().encode());
+    }
+
+    private void add(Revision revision) {
+        assert revision != null : "Revision cannot be null";
+
+        while (redoCount > 0) {
+            drop(undoCount + --redoCount);
+        }
+        if (undoCount == revisions.length) {
+            dropOldest();
+        }
+        int position = position(undoCount++);
+        revisions[position] = revision;
+        sizes[position] = revision.estimateBytes();
+        footprint += sizes[position];
+        while (footprint > maxBytes && undoCount > 1) {
+            dropOldest();
+        }
+    }
+
+    /**
+     * Returns the latest command that can be undone, without undoing it.
+     *
+     * @return the command, or {@code null} if there is none
+     */
+    public Revision peekUndo() {
+        return peekUndo(0);
+    }
+
+    /**
+     * Returns the command that would be undone after the given number of later ones, without
+     * undoing any.
+     *
+     * @param depth the number of later commands to look past
+     * @return the command, or {@code null} if there is none
+     */
+    public Revision peekUndo(int depth) {
+        return depth >= undoCount ? null : revisions[position(undoCount - 1 - depth)];
+    }
+
+    /**
+     * Moves the latest command that can be undone to the commands that can be redone.
+     *
+     * @return the command, or {@code null} if there is none
+     * @throws IOException if the change cannot be appended to the log
+     */
+    public Revision undo() throws IOException {
+        if (undoCount == 0) {
+            return null;
+        }
+        redoCount++;
+        Revision revision = revisions[position(--undoCount)];
+        appendToLog(UNDO);
+        return revision;
+    }
+
+    /**
+     * Returns the latest undone command, without redoing it.
+     *
+     * @return the command, or {@code null} if there is none
+     */
+    public Revision peekRedo() {
+        return peekRedo(0);
+    }
+
+    /**
+     * Returns the undone command that would be redone after the given number of earlier ones,
+     * without redoing any.
+     *
+     * @param depth the number of earlier undone commands to look past
+     * @return the command, or {@code null} if there is none
+     */
+    public Revision peekRedo(int depth) {
+        return depth >= redoCount ? null : revisions[position(undoCount + depth)];
+    }
+
+    /**
+     * Moves the latest undone command back to the commands that can be undone.
+     *
+     * @return the command, or {@code null} if there is none
+     * @throws IOException if the change cannot be appended to the log
+     */
+    public Revision redo() throws IOException {
+        if (redoCount == 0) {
+            return null;
+        }
+        redoCount--;
+        Revision revision = revisions[position(undoCount++)];
+        appendToLog(REDO);
+        return revision;
+    }
+
+    /**
+     * Returns the number of commands that can be undone.
+     *
+     * @return the number of commands
+     */
+    public int undoCount() {
+        return undoCount;
+    }
+
+    /**
+     * Returns the number of commands that can be redone.
+     *
+     * @return the number of commands
+     */
+    public int redoCount() {
+        return redoCount;
+    }
+
+    /**
+     * Returns the approximate number of bytes kept alive by the commands in the history,
+     * including the tasks they hold on to.
+     *
+     * @return the number of bytes
+     */
+    public long footprint() {
+        return footprint;
+    }
+
+    /**
+     * Applies a record of the log to this history, which is not yet appending to the log.
+     *
+     * @param record the record
+     * @return {@code false} if the record is corrupted
+     */
+    private boolean replay(String record) throws IOException {
+        if (record.equals(UNDO)) {
+            return undo() != null;
+        } else if (record.equals(REDO)) {
+            return redo() != null;
+        } else if (record.startsWith(RECORD + " | ")) {
+            UndoableCommand command = decode(record.substring(RECORD.length() + 3));
+            if (command != null) {
+                add(new Revision(command, null, null));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rebuilds an executed command from the line it was encoded as.
+     * <p>
+     * The expected format for each command is:
+     * <ul>
+     *     <li>Add: {@code A | index | <task line>}</li>
+     *     <li>Delete: {@code D | index | previousId | nextId | <task line>}, where the IDs are
+     *         those of the tasks next to the deleted one, or {@code 0}</li>
+     *     <li>Mark / unmark: {@code M | index | id | isMark | wasDone}</li>
+     *     <li>Bulk mark / unmark: {@code BM | isMark | index:id,index:id,...}</li>
+     *     <li>Bulk delete: {@code BD | index | length | <task line> | index | length | <task line> ...},
+     *         where each length is that of the task line after it</li>
+     * </ul>
+     * </p>
+     *
+     * @param line the encoded command
+     * @return the command, or {@code null} if the line is corrupted
+     */
+    private UndoableCommand decode(String line) {
+        String[] fields = line.split(" \\| ", 2);
+        String rest = fields.length > 1 ? fields[1] : "";
+        try {
+            switch (fields[0]) {
+                case AddCommand.CODE: {
+                    String[] parts = rest.split(" \\| ", 2);
+                    Task task = parts.length < 2 ? null : Storage.parseTask(parts[1]);
+                    if (task == null) {
+                        return null;
+                    }
+                    noteTaskId(task.getId());
+                    return new AddCommand(task, Integer.parseInt(parts[0]));
+                }
+                case DeleteCommand.CODE: {
+                    String[] parts = rest.split(" \\| ", 4);
+                    Task task = parts.length < 4 ? null : Storage.parseTask(parts[3]);
+                    if (task == null) {
+                        return null;
+                    }
+                    noteTaskId(task.getId());
+                    return new DeleteCommand(Integer.parseInt(parts[0]), task,
+                            Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                }
+                case MarkCommand.CODE: {
+                    String[] parts = rest.split(" \\| ");
+                    if (parts.length != 4) {
+                        return null;
+                    }
+                    noteTaskId(Long.parseLong(parts[1]));
+                    return new MarkCommand(Integer.parseInt(parts[0]), "1".equals(parts[2]), "1".equals(parts[3]),
+                            Long.parseLong(parts[1]));
+                }
+                case BulkMarkCommand.CODE:
+                    return decodeBulkMark(rest);
+                case BulkDeleteCommand.CODE:
+                    return decodeBulkDelete(rest);
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private UndoableCommand decodeBulkMark(String rest) {
+        String[] parts = rest.split(" \\| ", 2);
+        String[] changes = parts.length < 2 || parts[1].isEmpty() ? new String[0] : parts[1].split(",");
+        int[] indices = new int[changes.length];
+        long[] ids = new long[changes.length];
+        for (int i = 0; i < changes.length; i++) {
+            int separator = changes[i].indexOf(':');
+            indices[i] = Integer.parseInt(changes[i].substring(0, separator));
+            ids[i] = Long.parseLong(changes[i].substring(separator + 1));
+            noteTaskId(ids[i]);
+        }
+        return new BulkMarkCommand("1".equals(parts[0]), indices, ids);
+    }
+
+    private UndoableCommand decodeBulkDelete(String rest) {
+        List<Integer> indices = new ArrayList<>();
+        List<Task> removedTasks = new ArrayList<>();
+        int position = 0;
+        while (position < rest.length()) {
+            int indexEnd = rest.indexOf(" | ", position);
+            int lengthEnd = rest.indexOf(" | ", indexEnd + 3);
+            int lineStart = lengthEnd + 3;
+            int lineEnd = lineStart + Integer.parseInt(rest.substring(indexEnd + 3, lengthEnd));
+            Task task = Storage.parseTask(rest.substring(lineStart, lineEnd));
+            if (task == null || (lineEnd < rest.length() && !rest.startsWith(" | ", lineEnd))) {
+                return null;
+            }
+            indices.add(Integer.parseInt(rest.substring(position, indexEnd)));
+            removedTasks.add(task);
+            noteTaskId(task.getId());
+            position = lineEnd + 3;
+        }
+        return new BulkDeleteCommand(indices.stream().mapToInt(Integer::intValue).toArray(), removedTasks);
+    }
+
+    private void noteTaskId(long id) {
+        lastTaskId = Math.max(lastTaskId, id);
+    }
+
+    private void appendToLog(String record) throws IOException {
+        if (log == null) {
+            return;
+        }
+        log.append(record);
+        if (log.size() > 2 * (undoCount + redoCount) + LOG_SLACK) {
+            compactLog();
+        }
+    }
+
+    /**
+     * Rewrites the log with a record for each command held, followed by an undo record for
+     * each command that can be redone.
+     */
+    private void compactLog() throws IOException {
+        List<String> records = new ArrayList<>(undoCount + 2 * redoCount);
+        for (int i = 0; i < undoCount + redoCount; i++) {
+            records.add(RECORD + " | " + revisions[position(i)].getCommand().encode());
+        }
+        for (int i = 0; i < redoCount; i++) {
+            records.add(UNDO);
+        }
+        log.rewrite(records);
+    }
+
+    /**
+     * Drops the oldest command, which must be one that can be undone.
+     */
+    private void dropOldest() {
+        drop(0);
+        first = position(1);
+        undoCount--;
+    }
+
+    /**
+     * Clears a slot of the buffer and takes its revision off the footprint.
+     *
+     * @param offset the offset of the slot from the oldest revision
+     */
+    private void drop(int offset) {
+        int position = position(offset);
+        footprint -= sizes[position];
+        revisions[position] = null;
+        sizes[position] = 0;
+    }
+
+    private int position(int offset) {
+        int position = first + offset;
+        return position < revisions.length ? position : position - revisions.length;
+    }
+}
@@ -0,0 +1,92 @@
+package command;
+
+import error.JimmyTimmyException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The items chosen by a bulk command, such as {@code 5,9,12-40} or {@code all}.
+ * <p>
+ * The selection is kept as the ranges it was given in, and only turned into indices once the
+ * size of the list is known, so that a large range costs nothing until it is used.
+ * </p>
+ */
+public class ItemSelection {
+    /** Inclusive 0-based ranges of indices, or {@code null} for every item. */
+    private final List<int[]> ranges;
+
+    private ItemSelection(List<int[]> ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * Returns a selection of every item in the list.
+     *
+     * @return the selection
+     */
+    public static ItemSelection all() {
+        return new ItemSelection(null);
+    }
+
+    /**
+     * Parses a selection of item numbers separated by commas, each either a single number or an
+     * inclusive range such as {@code 12-40}, or the word {@code all}.
+     *
+     * @param text the selection as typed by the user
+     * @return the selection
+     * @throws JimmyTimmyException if the text is not a valid selection
+     */
+    public static ItemSelection parse(String text) throws JimmyTimmyException {
+        if (text.equals("all")) {
+            return all();
+        }
+        List<int[]> ranges = new ArrayList<>();
+        try {
+            for (String part : text.split(",")) {
+                String[] bounds = part.trim().split("-", -1);
+                if (bounds.length > 2) {
+                    throw new NumberFormatException();
+                }
+                int from = Integer.parseInt(bounds[0].trim());
+                int to = bounds.length == 2 ? Integer.parseInt(bounds[1].trim()) : from;
+                if (from > to) {
+                    throw new JimmyTimmyException(
+                            "A range of items must go from the lower item number to the higher one.");
+                }
+                ranges.add(new int[] {from - 1, to - 1});
+            }
+        } catch (NumberFormatException e) {
+            throw new JimmyTimmyException(
+                    "Item numbers must be integers or ranges like 12-40, separated by commas.");
+        }
+        return new ItemSelection(ranges);
+    }
+
+    /**
+     * Returns the indices of the selected items in a list of the given size.
+     *
+     * @param size the number of items in the list
+     * @return the 0-based indices, in ascending order without repeats
+     * @throws JimmyTimmyException if an item number is not in the list
+     */
+    public int[] resolve(int size) throws JimmyTimmyException {
+        if (ranges == null) {
+            int[] indices = new int[size];
+            for (int i = 0; i < size; i++) {
+                indices[i] = i;
+            }
+            return indices;
+        }
+        BitSet selected = new BitSet();
+        for (int[] range : ranges) {
+            if (range[0] < 0 || range[1] >= size) {
+                int missing = range[0] < 0 ? range[0] : Math.max(range[0], size);
+                throw new JimmyTimmyException("Task number " + (missing + 1) + " does not exist!");
+            }
+            selected.set(range[0], range[1] + 1);
+        }
+        return selected.stream().toArray();
+    }
+}
@@ -7,16 +7,39 @@ import task.TaskList;
 import ui.Ui;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
- * Command to list all tasks in the task list.
+ * Command to list all tasks in the task list, or only those with a given status.
  */
 public class ListCommand implements Command {
+    /** The status to list, or {@code null} to list every task. */
+    private final Boolean isDone;
+
+    /**
+     * Constructs a command that lists every task.
+     */
+    public ListCommand() {
+        this(null);
+    }
+
+    /**
+     * Constructs a command that lists the tasks with the given status.
+     *
+     * @param isDone the status to list, or {@code null} to list every task
+     */
+    public ListCommand(Boolean isDone) {
+        this.isDone = isDone;
+    }
+
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) throws JimmyTimmyException {
         if (tasks.isEmpty()) {
             return "Your cart is empty!";
         }
+        if (isDone != null) {
+            return listByStatus(tasks);
+        }
         StringBuilder sb = new StringBuilder("Here are the items in your cart:\n");
         for (int i = 0; i < tasks.size(); i++) {
             Task task = tasks.getTask(i);
@@ -24,4 +47,21 @@ public class ListCommand implements Command {
         }
         return sb.toString().trim();
     }
+
+    /**
+     * Lists the tasks with the chosen status under their numbers in the full list.
+     */
+    private String listByStatus(TaskList tasks) throws JimmyTimmyException {
+        List<Integer> indices = tasks.findByStatus(isDone);
+        if (indices.isEmpty()) {
+            return isDone ? "You haven't purchased anything yet!" : "Everything in your cart is purchased!";
+        }
+        StringBuilder sb = new StringBuilder(isDone
+                ? "Here are the purchased items in your cart:\n"
+                : "Here are the items still to buy:\n");
+        for (int index : indices) {
+            sb.append((index + 1)).append(". ").append(tasks.getTask(index)).append("\n");
+        }
+        return sb.toString().trim();
+    }
 }
@@ -12,6 +12,9 @@ import java.io.IOException;
  * Command to mark or unmark a task.
  */
 public class MarkCommand implements UndoableCommand {
+    /** Tag of an encoded mark command. */
+    static final String CODE = "M";
+
     private final int index;
     private final boolean isMark;
 
@@ -21,39 +24,68 @@ public class MarkCommand implements UndoableCommand {
      */
     private boolean previousState;
 
+    /** ID of the marked task, used to find it again on undo. */
+    private long taskId;
+
     public MarkCommand(int index, boolean isMark) {
         this.index = index;
         this.isMark = isMark;
     }
 
+    /**
+     * Rebuilds a mark command that has been executed, as decoded by {@link History}.
+     *
+     * @param index         the index of the task
+     * @param isMark        whether the task was marked rather than unmarked
+     * @param previousState whether the task was done before the command
+     * @param taskId        the ID of the task
+     */
+    MarkCommand(int index, boolean isMark, boolean previousState, long taskId) {
+        this.index = index;
+        this.isMark = isMark;
+        this.previousState = previousState;
+        this.taskId = taskId;
+    }
+
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage)
             throws IOException, JimmyTimmyException {
         Task task = tasks.getTask(index);
         previousState = task.isDone();
+        taskId = tasks.getTaskId(index);
 
         if (isMark) {
             task = tasks.markTask(index);
-            storage.save(tasks.getTasks());
+            storage.recordMark(tasks, index, true);
             return "Nice! I've checked this item out of your cart:\n  " + task;
         } else {
             task = tasks.unmarkTask(index);
-            storage.save(tasks.getTasks());
+            storage.recordMark(tasks, index, false);
             return "Aw, I've returned this item to the cart:\n  " + task;
         }
     }
 
     @Override
     public void undo(TaskList tasks, Ui ui, Storage storage) throws JimmyTimmyException, IOException {
-        Task task = tasks.getTask(index);
+        int position = tasks.indexOfId(taskId, index);
+        if (position < 0) {
+            throw new JimmyTimmyException("That item is no longer in your cart.");
+        }
+        Task task = tasks.getTask(position);
 
         if (previousState) {
-            tasks.markTask(index);
+            tasks.markTask(position);
         } else {
-            tasks.unmarkTask(index);
+            tasks.unmarkTask(position);
         }
 
-        storage.save(tasks.getTasks());
+        storage.recordMark(tasks, position, previousState);
         ui.showMessage("I've put the item back where it belonged\n  " + task);
     }
+
+    @Override
+    public String encode() {
+        return CODE + " | " + index + " | " + taskId + " | " + (isMark ? "1" : "0")
+                + " | " + (previousState ? "1" : "0");
+    }
 }
@@ -0,0 +1,26 @@
+package command;
+
+import storage.Storage;
+import task.Deadline;
+import task.TaskList;
+import ui.Ui;
+
+import java.util.List;
+
+/**
+ * Command to show the unpurchased items that expire first.
+ */
+public class NextCommand implements Command {
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) {
+        List<Deadline> next = tasks.findNextDue();
+        if (next.isEmpty()) {
+            return "Nothing in your cart is about to expire!";
+        }
+        StringBuilder sb = new StringBuilder("These items expire first:\n");
+        for (Deadline deadline : next) {
+            sb.append("  ").append(deadline).append("\n");
+        }
+        return sb.toString().trim();
+    }
+}
@@ -3,31 +3,62 @@ package command;
 import error.JimmyTimmyException;
 import storage.Storage;
 import task.TaskList;
+import task.VersionedTaskList;
 import ui.Ui;
 
 import java.io.IOException;
-import java.util.Stack;
 
 /**
- * Command to redo the last undone command.
+ * Command to redo the last undone commands.
+ * <p>
+ * A {@link VersionedTaskList} goes straight forward to the version recorded after the latest of
+ * the commands, so that nothing is run again, and however many commands are redone, the list is
+ * compared with that version and reindexed once, and only the tasks that differ are persisted.
+ * Commands recorded without versions, in an earlier run, are run again one at a time.
+ * </p>
  */
 public class RedoCommand implements Command {
-    private final Stack<UndoableCommand> undoStack;
-    private final Stack<UndoableCommand> redoStack;
+    private final History history;
+    private final int steps;
 
-    public RedoCommand(Stack<UndoableCommand> undoStack, Stack<UndoableCommand> redoStack) {
-        this.undoStack = undoStack;
-        this.redoStack = redoStack;
+    public RedoCommand(History history) {
+        this(history, 1);
+    }
+
+    /**
+     * Constructs a command redoing the given number of undone commands, or as many as there are.
+     *
+     * @param history the commands that can be undone and redone
+     * @param steps   the number of commands to redo, which must be positive
+     */
+    public RedoCommand(History history, int steps) {
+        assert steps > 0 : "Number of steps must be positive";
+
+        this.history = history;
+        this.steps = steps;
     }
 
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) throws IOException, JimmyTimmyException {
-        if (redoStack.isEmpty()) {
+        if (history.redoCount() == 0) {
             return "Nothing to redo!";
         }
-        UndoableCommand lastUndone = redoStack.pop();
-        lastUndone.execute(tasks, ui, storage);
-        undoStack.push(lastUndone);
-        return "Redid last undone command.";
+        int count = Math.min(steps, history.redoCount());
+        int restorable = 0;
+        while (restorable < count && history.peekRedo(restorable).isRestorable(tasks)) {
+            restorable++;
+        }
+        if (restorable > 0) {
+            VersionedTaskList versions = (VersionedTaskList) tasks;
+            storage.recordChanges(tasks, versions.restore(history.peekRedo(restorable - 1).getAfter()));
+            for (int i = 0; i < restorable; i++) {
+                history.redo();
+            }
+        }
+        for (int i = restorable; i < count; i++) {
+            history.peekRedo().redo(tasks, ui, storage);
+            history.redo();
+        }
+        return count == 1 ? "Redid last undone command." : "Redid the last " + count + " undone commands.";
     }
 }
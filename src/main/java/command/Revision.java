@@ -0,0 +1,149 @@
+package command;
+
+import error.JimmyTimmyException;
+import storage.Storage;
+import task.Deadline;
+import task.Event;
+import task.PersistentTaskStore;
+import task.Task;
+import task.TaskList;
+import task.VersionedTaskList;
+import ui.Ui;
+
+import java.io.IOException;
+
+/**
+ * An undoable command that has been executed, with the versions of the task list
+ * before and after it.
+ * <p>
+ * The versions are only known for a {@link VersionedTaskList}, which is undone and redone by
+ * restoring them, with only the changes between the versions persisted. For any other list, or
+ * for commands recorded in an earlier run, they are {@code null}, and the command is undone and
+ * redone by running it.
+ * </p>
+ */
+public class Revision {
+    /** Approximate size of a revision and its two versions. */
+    private static final long REVISION_BYTES = 64;
+
+    /** Approximate size of a node of a {@link PersistentTaskStore}. */
+    private static final long NODE_BYTES = 32;
+
+    /** Approximate size of a task without its description or dates. */
+    private static final long TASK_BYTES = 48;
+
+    /** Approximate size of a string without its characters. */
+    private static final long STRING_BYTES = 40;
+
+    /** Approximate size of a date and time. */
+    private static final long DATE_TIME_BYTES = 72;
+
+    private final UndoableCommand command;
+    private final PersistentTaskStore.Version before;
+    private final PersistentTaskStore.Version after;
+
+    /**
+     * Constructs a revision.
+     *
+     * @param command the executed command
+     * @param before  the version of the list before the command, or {@code null}
+     * @param after   the version of the list after the command, or {@code null}
+     */
+    public Revision(UndoableCommand command, PersistentTaskStore.Version before,
+                    PersistentTaskStore.Version after) {
+        assert command != null : "Command cannot be null";
+        assert (before == null) == (after == null) : "Both versions must be known, or neither";
+
+        this.command = command;
+        this.before = before;
+        this.after = after;
+    }
+
+    public UndoableCommand getCommand() {
+        return command;
+    }
+
+    public PersistentTaskStore.Version getBefore() {
+        return before;
+    }
+
+    public PersistentTaskStore.Version getAfter() {
+        return after;
+    }
+
+    /**
+     * Returns whether the command can be undone and redone by restoring its versions.
+     *
+     * @param tasks the task list the command was executed on
+     * @return {@code true} if the versions are known and the list can restore them
+     */
+    public boolean isRestorable(TaskList tasks) {
+        return before != null && tasks instanceof VersionedTaskList;
+    }
+
+    /**
+     * Undoes the command.
+     *
+     * @param tasks   the task list as it is after the command
+     * @param ui      the user interface for feedback
+     * @param storage the storage to persist the change to
+     * @throws JimmyTimmyException if the command cannot be undone
+     * @throws IOException         if saving to storage fails
+     */
+    public void undo(TaskList tasks, Ui ui, Storage storage) throws JimmyTimmyException, IOException {
+        if (isRestorable(tasks)) {
+            storage.recordChanges(tasks, ((VersionedTaskList) tasks).restore(before));
+        } else {
+            command.undo(tasks, ui, storage);
+        }
+    }
+
+    /**
+     * Redoes the command.
+     *
+     * @param tasks   the task list as it is before the command
+     * @param ui      the user interface for feedback
+     * @param storage the storage to persist the change to
+     * @throws JimmyTimmyException if the command cannot be redone
+     * @throws IOException         if saving to storage fails
+     */
+    public void redo(TaskList tasks, Ui ui, Storage storage) throws JimmyTimmyException, IOException {
+        if (isRestorable(tasks)) {
+            storage.recordChanges(tasks, ((VersionedTaskList) tasks).restore(after));
+        } else {
+            command.execute(tasks, ui, storage);
+        }
+    }
+
+    /**
+     * Returns about how many bytes this revision keeps alive, including the command, the tasks it
+     * holds on to, and the nodes of the task list that only its versions still refer to.
+     *
+     * @return the approximate number of bytes
+     */
+    public long estimateBytes() {
+        long bytes = REVISION_BYTES + command.estimateBytes();
+        if (after != null) {
+            // A change copies a node per level of a tree about one and a half times log2 of its size deep.
+            int levels = 64 - Long.numberOfLeadingZeros(Math.max(before.size(), after.size()) + 1L);
+            bytes += NODE_BYTES * (levels + levels / 2);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns about how many bytes a task takes, including its description and dates.
+     *
+     * @param task the task
+     * @return the approximate number of bytes
+     */
+    static long estimateBytes(Task task) {
+        long bytes = TASK_BYTES + STRING_BYTES + task.getDescription().length();
+        if (task instanceof Deadline) {
+            bytes += DATE_TIME_BYTES;
+        } else if (task instanceof Event) {
+            bytes += 2 * DATE_TIME_BYTES;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,29 @@
+package command;
+
+import storage.Storage;
+import task.TaskList;
+import ui.Ui;
+
+/**
+ * Command to count the purchased and unpurchased items in the task list, by type.
+ */
+public class SummaryCommand implements Command {
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) {
+        if (tasks.isEmpty()) {
+            return "Your cart is empty!";
+        }
+        StringBuilder sb = new StringBuilder("Here is a summary of your cart:\n");
+        sb.append("  Items to buy: ").append(tasks.countTasks(false))
+                .append(", purchased: ").append(tasks.countTasks(true)).append("\n");
+        appendType(sb, "Groceries", tasks, 'T');
+        appendType(sb, "Perishables", tasks, 'D');
+        appendType(sb, "Promotions", tasks, 'E');
+        return sb.toString().trim();
+    }
+
+    private static void appendType(StringBuilder sb, String label, TaskList tasks, char type) {
+        sb.append("  ").append(label).append(": ").append(tasks.countTasks(type, false))
+                .append(" to buy, ").append(tasks.countTasks(type, true)).append(" purchased\n");
+    }
+}
@@ -3,31 +3,62 @@ package command;
 import error.JimmyTimmyException;
 import storage.Storage;
 import task.TaskList;
+import task.VersionedTaskList;
 import ui.Ui;
 
 import java.io.IOException;
-import java.util.Stack;
 
 /**
- * Command to undo the last executed undoable command.
+ * Command to undo the last executed undoable commands.
+ * <p>
+ * A {@link VersionedTaskList} goes straight back to the version recorded before the earliest of
+ * the commands, so that nothing is run backwards, and however many commands are undone, the list
+ * is compared with that version and reindexed once, and only the tasks that differ are persisted.
+ * Commands recorded without versions, in an earlier run, are run backwards one at a time.
+ * </p>
  */
 public class UndoCommand implements Command {
-    private final Stack<UndoableCommand> undoStack;
-    private final Stack<UndoableCommand> redoStack;
+    private final History history;
+    private final int steps;
 
-    public UndoCommand(Stack<UndoableCommand> undoStack, Stack<UndoableCommand> redoStack) {
-        this.undoStack = undoStack;
-        this.redoStack = redoStack;
+    public UndoCommand(History history) {
+        this(history, 1);
+    }
+
+    /**
+     * Constructs a command undoing the given number of commands, or as many as there are.
+     *
+     * @param history the commands that can be undone and redone
+     * @param steps   the number of commands to undo, which must be positive
+     */
+    public UndoCommand(History history, int steps) {
+        assert steps > 0 : "Number of steps must be positive";
+
+        this.history = history;
+        this.steps = steps;
     }
 
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) throws IOException, JimmyTimmyException {
-        if (undoStack.isEmpty()) {
+        if (history.undoCount() == 0) {
             return "Nothing to undo!";
         }
-        UndoableCommand lastCommand = undoStack.pop();
-        lastCommand.undo(tasks, ui, storage);  // added Ui parameter
-        redoStack.push(lastCommand);
-        return "Undid last command.";
+        int count = Math.min(steps, history.undoCount());
+        int restorable = 0;
+        while (restorable < count && history.peekUndo(restorable).isRestorable(tasks)) {
+            restorable++;
+        }
+        if (restorable > 0) {
+            VersionedTaskList versions = (VersionedTaskList) tasks;
+            storage.recordChanges(tasks, versions.restore(history.peekUndo(restorable - 1).getBefore()));
+            for (int i = 0; i < restorable; i++) {
+                history.undo();
+            }
+        }
+        for (int i = restorable; i < count; i++) {
+            history.peekUndo().undo(tasks, ui, storage);
+            history.undo();
+        }
+        return count == 1 ? "Undid last command." : "Undid the last " + count + " commands.";
     }
 }
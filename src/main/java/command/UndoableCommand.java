@@ -21,4 +21,33 @@ public interface UndoableCommand extends Command {
      * @throws IOException         if saving to storage fails
      */
     void undo(TaskList tasks, Ui ui, Storage storage) throws JimmyTimmyException, IOException;
+
+    /**
+     * Returns whether executing this command changed the task list. A command that changed
+     * nothing, such as marking items that were all done already, is not recorded in the history,
+     * so that undoing never takes a step that does nothing.
+     *
+     * @return {@code true} if the task list was changed
+     */
+    default boolean hasChanges() {
+        return true;
+    }
+
+    /**
+     * Returns a single line from which {@link History} rebuilds this command after it has been
+     * executed, so that it can still be undone and redone in a later run.
+     *
+     * @return the encoded command
+     */
+    String encode();
+
+    /**
+     * Returns about how many bytes this command keeps alive so that it can be undone,
+     * including any task it holds on to.
+     *
+     * @return the approximate number of bytes
+     */
+    default long estimateBytes() {
+        return 32;
+    }
 }
@@ -0,0 +1,64 @@
+package command;
+
+import error.JimmyTimmyException;
+import storage.Storage;
+import task.TaskList;
+import task.VersionedTaskList;
+import ui.Ui;
+
+import java.io.IOException;
+
+/**
+ * Command to show which version of the list is current, or to jump to another version.
+ * <p>
+ * Versions are numbered from {@code 0}, the list before the oldest command that can be undone,
+ * up to the list after the latest command that can be redone. Jumping undoes or redoes every
+ * command in between, so a {@link VersionedTaskList} goes straight to the target version in one
+ * restore, without running any command.
+ * </p>
+ */
+public class VersionCommand implements Command {
+    private final History history;
+    private final int target;
+
+    /**
+     * Constructs a command showing the current version.
+     *
+     * @param history the commands that can be undone and redone
+     */
+    public VersionCommand(History history) {
+        this(history, -1);
+    }
+
+    /**
+     * Constructs a command jumping to the given version.
+     *
+     * @param history the commands that can be undone and redone
+     * @param target  the version to jump to, or {@code -1} to show the current version
+     */
+    public VersionCommand(History history, int target) {
+        this.history = history;
+        this.target = target;
+    }
+
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) throws IOException, JimmyTimmyException {
+        int current = history.undoCount();
+        int latest = current + history.redoCount();
+        if (target < 0) {
+            return "Your cart is at version " + current + " of " + latest + ".";
+        }
+        if (target > latest) {
+            throw new JimmyTimmyException("Version " + target + " does not exist! Pick one from 0 to "
+                    + latest + ".");
+        }
+        if (target < current) {
+            new UndoCommand(history, current - target).execute(tasks, ui, storage);
+        } else if (target > current) {
+            new RedoCommand(history, target - current).execute(tasks, ui, storage);
+        } else {
+            return "Your cart is already at version " + target + ".";
+        }
+        return "Jumped to version " + target + " of " + latest + ".";
+    }
+}
@@ -4,6 +4,7 @@ import command.*;
 import error.JimmyTimmyException;
 import storage.Storage;
 import task.Deadline;
+import task.DescriptionPool;
 import task.Event;
 import task.Task;
 import task.TaskList;
@@ -13,7 +14,6 @@ import ui.Ui;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.Stack;
 
 /**
  * Parses raw user input into executable {@link Command} objects.
@@ -40,8 +40,16 @@ public class Parser {
     private static final String CMD_TODO = "todo";
     private static final String CMD_DEADLINE = "deadline";
     private static final String CMD_EVENT = "event";
+    private static final String CMD_FIND = "find";
+    private static final String CMD_DUE_BEFORE = "due-before";
+    private static final String CMD_DUE_BETWEEN = "due-between";
+    private static final String CMD_NEXT = "next";
+    private static final String CMD_ACTIVE = "active";
+    private static final String CMD_OVERLAP = "overlap";
+    private static final String CMD_SUMMARY = "summary";
     private static final String CMD_UNDO = "undo";
     private static final String CMD_REDO = "redo";
+    private static final String CMD_VERSION = "version";
     private static final String CMD_BYE = "bye";
 
     /** Formatter for parsing date/time strings into {@link java.time.LocalDateTime} objects. */
@@ -52,13 +60,12 @@ public class Parser {
      * Parses a full user command string and returns the corresponding {@link Command}.
      *
      * @param fullCommand the full input line entered by the user
+     * @param history     the commands that can be undone and redone
      * @return a {@code Command} representing the parsed user instruction
      * @throws JimmyTimmyException if the command is unrecognized, arguments are missing,
      *                             or a number/date is incorrectly formatted
      */
-    public static Command parse(String fullCommand,
-                                Stack<UndoableCommand> undoStack,
-                                Stack<UndoableCommand> redoStack) throws JimmyTimmyException {
+    public static Command parse(String fullCommand, History history) throws JimmyTimmyException {
         String trimmed = fullCommand.trim();
         if (trimmed.isEmpty()) throw new JimmyTimmyException("Your cart is empty! Type something to add items.");
 
@@ -69,27 +76,74 @@ public class Parser {
         try {
             switch (commandWord) {
                 case CMD_LIST:
-                    return new ListCommand();
+                    return parseList(args);
 
                 case CMD_MARK:
-                    return new MarkCommand(parseIndex(args), true);
-
                 case CMD_UNMARK:
-                    return new MarkCommand(parseIndex(args), false);
+                    boolean isMark = commandWord.equals(CMD_MARK);
+                    return isSelection(args)
+                            ? new BulkMarkCommand(ItemSelection.parse(args), isMark)
+                            : new MarkCommand(parseIndex(args), isMark);
 
                 case CMD_DELETE:
-                    return new DeleteCommand(parseIndex(args));
+                    return isSelection(args)
+                            ? new BulkDeleteCommand(ItemSelection.parse(args))
+                            : new DeleteCommand(parseIndex(args));
 
                 case CMD_TODO:
                 case CMD_DEADLINE:
                 case CMD_EVENT:
                     return new AddCommand(parseTask(commandWord, args));
 
+                case CMD_FIND:
+                    if (args.isBlank()) {
+                        throw new JimmyTimmyException("You need to specify a keyword to search your cart for.");
+                    }
+                    return new FindCommand(args);
+
+                case CMD_DUE_BEFORE:
+                    if (args.isBlank()) {
+                        throw new JimmyTimmyException("You need to specify a date: due-before <yyyy-MM-dd HH:mm>.");
+                    }
+                    return new DueCommand(null, LocalDateTime.parse(args, DATE_FORMAT));
+
+                case CMD_DUE_BETWEEN:
+                    String[] period = args.split(" /to ", 2);
+                    if (period.length < 2) {
+                        throw new JimmyTimmyException("A period requires a start date and a /to date.");
+                    }
+                    return new DueCommand(LocalDateTime.parse(period[0].trim(), DATE_FORMAT),
+                            LocalDateTime.parse(period[1].trim(), DATE_FORMAT));
+
+                case CMD_NEXT:
+                    return new NextCommand();
+
+                case CMD_ACTIVE:
+                    if (args.isBlank()) {
+                        throw new JimmyTimmyException("You need to specify a date: active <yyyy-MM-dd HH:mm>.");
+                    }
+                    LocalDateTime time = LocalDateTime.parse(args, DATE_FORMAT);
+                    return new ActiveCommand(time, time);
+
+                case CMD_OVERLAP:
+                    String[] range = args.split(" /to ", 2);
+                    if (range.length < 2) {
+                        throw new JimmyTimmyException("A period requires a start date and a /to date.");
+                    }
+                    return new ActiveCommand(LocalDateTime.parse(range[0].trim(), DATE_FORMAT),
+                            LocalDateTime.parse(range[1].trim(), DATE_FORMAT));
+
+                case CMD_SUMMARY:
+                    return new SummaryCommand();
+
                 case CMD_UNDO:
-                    return new UndoCommand(undoStack, redoStack);
+                    return new UndoCommand(history, parseSteps(args));
 
                 case CMD_REDO:
-                    return new RedoCommand(undoStack, redoStack);
+                    return new RedoCommand(history, parseSteps(args));
+
+                case CMD_VERSION:
+                    return new VersionCommand(history, parseVersion(args));
 
                 case CMD_BYE:
                     return new ExitCommand();
@@ -119,7 +173,7 @@ public class Parser {
                 if (args.isBlank()) {
                     throw new JimmyTimmyException("You need to specify a grocery item to add to the cart!");
                 }
-                return new ToDo(args);
+                return new ToDo(DescriptionPool.intern(args));
 
             case CMD_DEADLINE:
                 String[] deadlineParts = args.split(" /by ", 2);
@@ -127,7 +181,7 @@ public class Parser {
                     throw new JimmyTimmyException("Expiry date requires a grocery item and /by date.");
                 }
                 java.time.LocalDateTime by = java.time.LocalDateTime.parse(deadlineParts[1].trim(), DATE_FORMAT);
-                return new Deadline(deadlineParts[0].trim(), by);
+                return new Deadline(DescriptionPool.intern(deadlineParts[0].trim()), by);
 
             case CMD_EVENT:
                 String[] eventFromSplit = args.split(" /from ", 2);
@@ -140,13 +194,85 @@ public class Parser {
                 }
                 java.time.LocalDateTime start = java.time.LocalDateTime.parse(eventToSplit[0].trim(), DATE_FORMAT);
                 java.time.LocalDateTime end = java.time.LocalDateTime.parse(eventToSplit[1].trim(), DATE_FORMAT);
-                return new Event(eventFromSplit[0].trim(), start, end);
+                return new Event(DescriptionPool.intern(eventFromSplit[0].trim()), start, end);
 
             default:
                 throw new JimmyTimmyException("Sorry I don't recognise that type of item: " + commandWord);
         }
     }
 
+    /**
+     * Parses the arguments of a {@code list} command into the status to list.
+     *
+     * @param args the raw arguments string following the command word
+     * @return a {@code ListCommand} for every task, or for the purchased or unpurchased ones
+     * @throws JimmyTimmyException if the argument is not {@code done} or {@code pending}
+     */
+    private static Command parseList(String args) throws JimmyTimmyException {
+        switch (args) {
+            case "":
+                return new ListCommand();
+            case "done":
+                return new ListCommand(true);
+            case "pending":
+                return new ListCommand(false);
+            default:
+                throw new JimmyTimmyException("You can only list your whole cart, or add 'done' or 'pending'.");
+        }
+    }
+
+    /**
+     * Parses the number of commands to undo or redo, which is one if none is given.
+     *
+     * @param arg the argument string, blank or expected to contain a number
+     * @return the number of commands
+     * @throws JimmyTimmyException if the argument is not a positive integer
+     */
+    private static int parseSteps(String arg) throws JimmyTimmyException {
+        if (arg.isBlank()) {
+            return 1;
+        }
+        try {
+            int steps = Integer.parseInt(arg);
+            if (steps > 0) {
+                return steps;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new JimmyTimmyException("The number of actions to undo or redo must be a positive integer.");
+    }
+
+    /**
+     * Parses the version to jump to, which is {@code -1} if none is given.
+     *
+     * @param arg the argument string, blank or expected to contain a number
+     * @return the version, or {@code -1} to show the current version
+     * @throws JimmyTimmyException if the argument is not a non-negative integer
+     */
+    private static int parseVersion(String arg) throws JimmyTimmyException {
+        if (arg.isBlank()) {
+            return -1;
+        }
+        try {
+            int version = Integer.parseInt(arg);
+            if (version >= 0) {
+                return version;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new JimmyTimmyException("The version to jump to must be a number from 0 up.");
+    }
+
+    /**
+     * Returns whether the argument selects several items, such as {@code 5,9,12-40} or {@code all},
+     * rather than a single item number.
+     */
+    private static boolean isSelection(String arg) {
+        return arg.equals("all") || arg.contains(",") || arg.contains("-");
+    }
+
     /**
      * Parses a task index string into an integer (0-based).
      *
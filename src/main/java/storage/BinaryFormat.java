@@ -0,0 +1,266 @@
+package storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import task.Deadline;
+import task.DescriptionPool;
+import task.Event;
+import task.Task;
+import task.ToDo;
+
+/**
+ * Reads and writes the compact binary storage format.
+ * <p>
+ * A file starts with the 4-byte magic {@code JTMY} and a 1-byte format version, followed by
+ * one record per task:
+ * <ul>
+ *     <li>a type byte ({@code 'T'}, {@code 'D'} or {@code 'E'}),</li>
+ *     <li>a done byte ({@code 0} or {@code 1}),</li>
+ *     <li>the task's ID as an 8-byte number, {@code 0} if it has none (from version 2),</li>
+ *     <li>the description as a 4-byte length followed by its UTF-8 bytes,</li>
+ *     <li>for deadlines, the due date, and for events, the start and end, each as an 8-byte
+ *         count of minutes since 1970-01-01 00:00 (a 4-byte count before version 3).</li>
+ * </ul>
+ * </p>
+ */
+public class BinaryFormat {
+    /** Bytes every binary storage file starts with. */
+    private static final byte[] MAGIC = {'J', 'T', 'M', 'Y'};
+
+    /** Version of the record layout written by this class. */
+    private static final byte VERSION = 3;
+
+    /** Oldest version of the record layout this class can read. */
+    private static final byte OLDEST_VERSION = 1;
+
+    private static final byte TYPE_TODO = 'T';
+    private static final byte TYPE_DEADLINE = 'D';
+    private static final byte TYPE_EVENT = 'E';
+
+    /**
+     * Returns whether the given file starts with the binary format header.
+     *
+     * @param file the file to check
+     * @return {@code true} if the file is in the binary format
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isBinary(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] header = in.readNBytes(MAGIC.length);
+            if (header.length < MAGIC.length) {
+                return false;
+            }
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (header[i] != MAGIC[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads every task from a binary storage file.
+     * If the file ends in the middle of a record, contains an unknown record type, or gives a
+     * description length that does not fit in the rest of the file, the tasks read up to that
+     * point are returned, with a warning printed to the console.
+     *
+     * @param file the file to read
+     * @return the tasks in the order they were written
+     * @throws IOException if the file cannot be read or has an unsupported version
+     */
+    public static ArrayList<Task> read(File file) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        CountingInputStream counted = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)));
+        long length = file.length();
+        try (DataInputStream in = new DataInputStream(counted)) {
+            in.skipNBytes(MAGIC.length);
+            byte version = in.readByte();
+            if (version < OLDEST_VERSION || version > VERSION) {
+                throw new IOException("Unsupported storage version: " + version);
+            }
+
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    break;
+                }
+                try {
+                    Task task = readRecord((byte) type, version, in, length - counted.count);
+                    if (task == null) {
+                        System.out.println("Skipping corrupted data after item " + tasks.size());
+                        break;
+                    }
+                    tasks.add(task);
+                } catch (EOFException e) {
+                    System.out.println("Skipping corrupted data after item " + tasks.size());
+                    break;
+                }
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes the given tasks to a binary storage file.
+     *
+     * @param out   the stream to write to
+     * @param tasks the tasks to write
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(OutputStream out, List<Task> tasks) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        for (Task task : tasks) {
+            writeRecord(data, task);
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads the rest of a record whose type byte has already been read.
+     *
+     * @param type    the type byte of the record
+     * @param version the format version of the file
+     * @param in        the stream positioned after the type byte
+     * @param remaining the number of bytes left in the file after the type byte
+     * @return the task, or {@code null} if the type is unknown or the record is corrupted
+     * @throws IOException if the stream ends or cannot be read
+     */
+    private static Task readRecord(byte type, byte version, DataInputStream in, long remaining)
+            throws IOException {
+        boolean isDone = in.readByte() != 0;
+        long id = version >= 2 ? in.readLong() : 0;
+        int length = in.readInt();
+        if (length < 0 || length > remaining - (version >= 2 ? 13 : 5)) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        String description = DescriptionPool.intern(new String(bytes, StandardCharsets.UTF_8));
+
+        Task task;
+        switch (type) {
+            case TYPE_TODO:
+                task = new ToDo(description);
+                break;
+            case TYPE_DEADLINE:
+                task = new Deadline(description, readDateTime(in, version));
+                break;
+            case TYPE_EVENT:
+                LocalDateTime start = readDateTime(in, version);
+                task = new Event(description, start, readDateTime(in, version));
+                break;
+            default:
+                return null;
+        }
+        if (isDone) {
+            task.markAsDone();
+        }
+        if (id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    /**
+     * Writes a single task record.
+     *
+     * @param out  the stream to write to
+     * @param task the task to write
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeRecord(DataOutputStream out, Task task) throws IOException {
+        byte type;
+        if (task instanceof ToDo) {
+            type = TYPE_TODO;
+        } else if (task instanceof Deadline) {
+            type = TYPE_DEADLINE;
+        } else if (task instanceof Event) {
+            type = TYPE_EVENT;
+        } else {
+            return;
+        }
+
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        out.writeByte(type);
+        out.writeByte(task.isDone() ? 1 : 0);
+        out.writeLong(task.getId());
+        out.writeInt(description.length);
+        out.write(description);
+
+        if (task instanceof Deadline) {
+            out.writeLong(toEpochMinute(((Deadline) task).getDueDate()));
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            out.writeLong(toEpochMinute(event.getStart()));
+            out.writeLong(toEpochMinute(event.getEnd()));
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in, byte version) throws IOException {
+        return fromEpochMinute(version >= 3 ? in.readLong() : in.readInt());
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime fromEpochMinute(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * A stream counting the bytes read through it, so that a length read from a record can be
+     * checked against what is left of the file before anything is allocated for it.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
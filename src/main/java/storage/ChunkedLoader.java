@@ -0,0 +1,165 @@
+package storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import task.Task;
+
+/**
+ * Loads a large storage file by memory-mapping it, splitting it into newline-aligned
+ * chunks and parsing the chunks in parallel on a fork-join pool.
+ * <p>
+ * The tasks of each chunk are collected separately and joined in file order, so the result
+ * is the same as reading the file line by line. Lines that cannot be parsed are skipped,
+ * with a warning printed to the console.
+ * </p>
+ */
+public class ChunkedLoader {
+    /** Default number of bytes parsed by a single fork-join task. */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final File file;
+    private final int chunkSize;
+
+    /**
+     * Constructs a loader for the given file.
+     *
+     * @param file      the storage file to load
+     * @param chunkSize the approximate number of bytes parsed by a single task
+     */
+    public ChunkedLoader(File file, int chunkSize) {
+        assert chunkSize > 0 : "Chunk size must be positive";
+
+        this.file = file;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Parses every line of the file into a task.
+     *
+     * @return the tasks in the order they appear in the file
+     * @throws IOException if the file cannot be mapped
+     */
+    public ArrayList<Task> load() throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<long[]> chunks = split(channel);
+            return ForkJoinPool.commonPool().invoke(new ParseTask(channel, chunks, 0, chunks.size()));
+        }
+    }
+
+    /**
+     * Splits the file into ranges of roughly {@link #chunkSize} bytes, each ending just after a newline
+     * (or at the end of the file).
+     *
+     * @param channel the channel of the file
+     * @return the {@code [start, end)} byte ranges of the chunks, in file order
+     * @throws IOException if the file cannot be read
+     */
+    private List<long[]> split(FileChannel channel) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        long size = channel.size();
+        long start = 0;
+
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+            end = nextLineStart(channel, end, size);
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the position just after the first newline at or after the given position.
+     *
+     * @param channel  the channel of the file
+     * @param position the position to search from
+     * @param size     the size of the file
+     * @return the start of the next line, or {@code size} if there is no further newline
+     * @throws IOException if the file cannot be read
+     */
+    private long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        while (position < size) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(chunkSize, size - position));
+            while (window.hasRemaining()) {
+                if (window.get() == '\n') {
+                    return position + window.position();
+                }
+            }
+            position += window.limit();
+        }
+        return size;
+    }
+
+    /**
+     * Parses a range of chunks, forking until a single chunk is left.
+     */
+    private static class ParseTask extends RecursiveTask<ArrayList<Task>> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final List<long[]> chunks;
+        private final int from;
+        private final int to;
+
+        ParseTask(FileChannel channel, List<long[]> chunks, int from, int to) {
+            this.channel = channel;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ArrayList<Task> compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ParseTask left = new ParseTask(channel, chunks, from, mid);
+                left.fork();
+                ArrayList<Task> right = new ParseTask(channel, chunks, mid, to).compute();
+                ArrayList<Task> tasks = left.join();
+                tasks.addAll(right);
+                return tasks;
+            }
+
+            ArrayList<Task> tasks = new ArrayList<>();
+            if (from == to) {
+                return tasks;
+            }
+            long[] chunk = chunks.get(from);
+            String text;
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+                text = Charset.defaultCharset().decode(buffer).toString();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            int lineStart = 0;
+            while (lineStart < text.length()) {
+                int lineEnd = text.indexOf('\n', lineStart);
+                if (lineEnd < 0) {
+                    lineEnd = text.length();
+                }
+                int contentEnd = lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                String line = text.substring(lineStart, contentEnd);
+                Task task = Storage.parseLine(line);
+                if (task == null) {
+                    System.out.println("Skipping corrupted line: " + line);
+                } else {
+                    tasks.add(task);
+                }
+                lineStart = lineEnd + 1;
+            }
+            return tasks;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package storage;
+
+/**
+ * How strongly journal records are persisted before a command returns.
+ * Only applies to a {@link Storage} in journal mode.
+ */
+public enum Durability {
+    /**
+     * Each command writes its records to the journal and forces them to disk with an fsync before
+     * returning. Nothing is lost even on a power loss, but every command waits on the disk.
+     */
+    FLUSH_PER_COMMAND,
+
+    /**
+     * Records are queued and written by a background thread in batches, each batch
+     * forced to disk with a single fsync. A crash or power loss loses at most one batch window.
+     */
+    BATCHED_FSYNC,
+
+    /**
+     * Records are queued and written by a background thread in batches, leaving it to the
+     * operating system to write them to disk. Fastest, but a power loss can lose more than one batch.
+     */
+    OS_BUFFERED
+}
@@ -0,0 +1,133 @@
+package storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the history of undoable commands in a file, as one record per line.
+ * <p>
+ * Each change to the history is appended as a single record sealed with its
+ * {@link RecordChecksum}, so recording, undoing or redoing a command writes a constant amount
+ * however long the history is. The owner of the log rebuilds the history by reading every record
+ * in order, and rewrites the log with just the records still needed once it has grown long.
+ * A record cut short by a crash ends the log; it and everything after it are ignored.
+ * </p>
+ * <p>
+ * The log of a {@link Storage} appends through the storage's {@link JournalWriter}, behind the
+ * journal records of the command it records, so the log never holds a command the journal has
+ * not persisted yet. Undoing a command whose change was lost in a crash would otherwise apply
+ * its reverse to a list that never had the change, such as adding a deleted task back twice.
+ * </p>
+ */
+public class HistoryLog {
+    private final File file;
+
+    /** Number of records in the file. */
+    private int records;
+
+    /** Writer the records are appended through, or {@code null} to write them directly. */
+    private JournalWriter writer;
+
+    /**
+     * Constructs a log kept in the given file, which is created on the first append.
+     *
+     * @param file the file to keep the log in
+     */
+    public HistoryLog(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Appends records through the given writer from now on, after the journal records queued
+     * before each of them.
+     *
+     * @param writer the writer of the journal
+     */
+    void writeThrough(JournalWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Reads the intact records of the log, in order.
+     *
+     * @return the records, without their checksums
+     * @throws IOException if the file cannot be read
+     */
+    public List<String> load() throws IOException {
+        List<String> loaded = new ArrayList<>();
+        if (file.exists()) {
+            for (String line : Files.readAllLines(file.toPath(), Charset.defaultCharset())) {
+                String record = RecordChecksum.unseal(line);
+                if (record == null || record.isEmpty()) {
+                    System.out.println("Discarding damaged history from record: " + line);
+                    break;
+                }
+                loaded.add(record);
+            }
+        }
+        records = loaded.size();
+        return loaded;
+    }
+
+    /**
+     * Appends a record to the log.
+     *
+     * @param record the record to append, which must not contain a line break
+     * @throws IOException if the file cannot be written
+     */
+    public void append(String record) throws IOException {
+        assert record.indexOf('\n') < 0 : "Record cannot contain a line break";
+
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        if (writer != null) {
+            writer.appendTo(file, RecordChecksum.seal(record));
+        } else {
+            Files.writeString(file.toPath(), RecordChecksum.seal(record) + System.lineSeparator(),
+                    Charset.defaultCharset(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        records++;
+    }
+
+    /**
+     * Replaces every record of the log with the given ones. The records are written to a
+     * temporary file that then replaces the log, so a crash leaves either the old or the new log.
+     * Every queued record is written first, since the records kept may depend on them.
+     *
+     * @param replacement the records to keep
+     * @throws IOException if the file cannot be written
+     */
+    public void rewrite(List<String> replacement) throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        List<String> sealed = new ArrayList<>(replacement.size());
+        for (String record : replacement) {
+            sealed.add(RecordChecksum.seal(record));
+        }
+        Files.write(temp.toPath(), sealed, Charset.defaultCharset());
+        Files.move(temp.toPath(), file.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        records = replacement.size();
+    }
+
+    /**
+     * Returns the number of records in the log, as last loaded, appended or rewritten.
+     *
+     * @return the number of records
+     */
+    public int size() {
+        return records;
+    }
+}
@@ -0,0 +1,260 @@
+package storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import task.Task;
+
+/**
+ * Folds the journal of a {@link Storage} back into its data file.
+ * <p>
+ * Compaction rotates the live journal to a numbered generation file
+ * ({@code <journal>.N}), writes a snapshot of the tasks as they were at that point
+ * to {@code <data>.compacted.N} on a background thread, and then replaces the data
+ * file with the snapshot, deleting every generation it covers.
+ * Each step leaves the files in a state that {@link #recover()} can finish or
+ * ignore, so a crash never loses or double-applies a journal record.
+ * Text snapshots also get a fresh {@link OffsetIndex} sidecar.
+ * </p>
+ */
+public class JournalCompactor {
+    /** Suffix of a finished snapshot, followed by the last generation it covers. */
+    private static final String COMPACTED_SUFFIX = ".compacted.";
+
+    /** Suffix of a snapshot that is still being written. */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Storage storage;
+    private final File dataFile;
+    private final File journalFile;
+
+    /** Runs snapshot writes off the command thread. */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The compaction currently running in the background, if any. */
+    private Future<?> pending;
+
+    /**
+     * Constructs a compactor for the given storage files.
+     *
+     * @param storage     the storage used to serialize snapshots
+     * @param dataFile    the data file holding the latest snapshot
+     * @param journalFile the live journal appended to by the storage
+     */
+    public JournalCompactor(Storage storage, File dataFile, File journalFile) {
+        this.storage = storage;
+        this.dataFile = dataFile;
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * Returns whether a compaction is still running in the background.
+     *
+     * @return {@code true} if a snapshot is being written
+     */
+    public boolean isCompacting() {
+        return pending != null && !pending.isDone();
+    }
+
+    /**
+     * Finishes a compaction interrupted after its snapshot was complete.
+     * Must be called before the data file and journals are read.
+     *
+     * @throws IOException if the snapshot cannot be moved into place
+     */
+    public void recover() throws IOException {
+        File parent = dataFile.getAbsoluteFile().getParentFile();
+        File[] leftovers = parent.listFiles((dir, name) -> name.startsWith(dataFile.getName() + COMPACTED_SUFFIX));
+        if (leftovers == null) {
+            return;
+        }
+
+        File latest = null;
+        int latestGeneration = -1;
+        for (File leftover : leftovers) {
+            String suffix = leftover.getName().substring((dataFile.getName() + COMPACTED_SUFFIX).length());
+            if (suffix.endsWith(TEMP_SUFFIX)) {
+                Files.deleteIfExists(leftover.toPath());
+                continue;
+            }
+            try {
+                int generation = Integer.parseInt(suffix);
+                if (generation > latestGeneration) {
+                    latest = leftover;
+                    latestGeneration = generation;
+                }
+            } catch (NumberFormatException e) {
+                // Not a snapshot written by the compactor.
+            }
+        }
+
+        if (latest != null) {
+            install(latest, latestGeneration);
+        }
+    }
+
+    /**
+     * Returns the rotated journal generations that are not yet covered by the data file,
+     * oldest first.
+     *
+     * @return the generation files to replay before the live journal
+     */
+    public List<File> generations() {
+        List<File> files = new ArrayList<>();
+        for (int generation : listGenerations()) {
+            files.add(generationFile(generation));
+        }
+        return files;
+    }
+
+    /**
+     * Rotates the live journal and writes a snapshot of the given tasks in the background.
+     * Does nothing if a compaction is already running.
+     * <p>
+     * The tasks are read later on the compactor thread, so the list must be a snapshot that
+     * no longer changes. A task marked in the meantime is saved with its newer status,
+     * which is harmless because the journal records that follow the rotation set,
+     * rather than toggle, the status of the tasks they touch.
+     * </p>
+     *
+     * @param snapshot the tasks as they are after the last journal record
+     * @throws IOException if the journal cannot be rotated
+     */
+    public void compactAsync(List<Task> snapshot) throws IOException {
+        if (isCompacting()) {
+            return;
+        }
+        int generation = rotate();
+        pending = executor.submit(() -> {
+            try {
+                writeSnapshot(snapshot, generation);
+            } catch (IOException e) {
+                System.out.println("Failed to compact journal: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Rotates the live journal and writes a snapshot of the given tasks on the calling thread,
+     * waiting for any background compaction to finish first.
+     *
+     * @param tasks the tasks as they are after the last journal record
+     * @throws IOException if the journal cannot be rotated or the snapshot cannot be written
+     */
+    public void compactNow(List<Task> tasks) throws IOException {
+        awaitPending();
+        writeSnapshot(tasks, rotate());
+    }
+
+    /**
+     * Waits for a background compaction, if any, to finish.
+     */
+    public void awaitPending() {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Failed to compact journal: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Moves the live journal to the next generation number.
+     *
+     * @return the generation the journal was moved to
+     * @throws IOException if the journal cannot be moved
+     */
+    private int rotate() throws IOException {
+        List<Integer> generations = listGenerations();
+        int generation = generations.isEmpty() ? 1 : generations.get(generations.size() - 1) + 1;
+        if (journalFile.exists()) {
+            Files.move(journalFile.toPath(), generationFile(generation).toPath(),
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        return generation;
+    }
+
+    /**
+     * Writes a snapshot covering every generation up to the given one and installs it.
+     *
+     * @param tasks      the tasks to write
+     * @param generation the last generation reflected in the tasks
+     * @throws IOException if the snapshot cannot be written or installed
+     */
+    private void writeSnapshot(List<Task> tasks, int generation) throws IOException {
+        File compacted = new File(dataFile.getPath() + COMPACTED_SUFFIX + generation);
+        File temp = new File(compacted.getPath() + TEMP_SUFFIX);
+        OffsetIndex index = storage.writeTasks(temp, tasks);
+        Files.move(temp.toPath(), compacted.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        install(compacted, generation);
+
+        if (index != null) {
+            try {
+                index.write(dataFile);
+            } catch (IOException e) {
+                System.out.println("Failed to save index: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes the generations covered by a finished snapshot and makes it the data file.
+     *
+     * @param compacted  the finished snapshot
+     * @param generation the last generation the snapshot covers
+     * @throws IOException if the files cannot be deleted or moved
+     */
+    private void install(File compacted, int generation) throws IOException {
+        for (int covered : listGenerations()) {
+            if (covered <= generation) {
+                Files.deleteIfExists(generationFile(covered).toPath());
+            }
+        }
+        Files.move(compacted.toPath(), dataFile.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Lists the numbers of the rotated journal generations on disk, in ascending order.
+     *
+     * @return the generation numbers
+     */
+    private List<Integer> listGenerations() {
+        List<Integer> generations = new ArrayList<>();
+        File parent = journalFile.getAbsoluteFile().getParentFile();
+        String prefix = journalFile.getName() + ".";
+        String[] names = parent.list((dir, name) -> name.startsWith(prefix));
+        if (names == null) {
+            return generations;
+        }
+        for (String name : names) {
+            try {
+                generations.add(Integer.parseInt(name.substring(prefix.length())));
+            } catch (NumberFormatException e) {
+                // Not a generation file.
+            }
+        }
+        generations.sort(null);
+        return generations;
+    }
+
+    private File generationFile(int generation) {
+        return new File(journalFile.getPath() + "." + generation);
+    }
+}
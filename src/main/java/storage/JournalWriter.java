@@ -0,0 +1,321 @@
+package storage;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends records to a journal file, either directly or through a single background thread.
+ * <p>
+ * With {@link Durability#FLUSH_PER_COMMAND}, every call writes its records and forces them to
+ * disk before returning.
+ * </p>
+ * <p>
+ * With {@link Durability#BATCHED_FSYNC} or {@link Durability#OS_BUFFERED}, records are queued
+ * and the background writer waits up to a time window, or until a batch is full, before writing
+ * everything queued in one append (group commit). A failed write is reported by the next call
+ * to {@link #append(String)} or {@link #flush()}.
+ * </p>
+ * <p>
+ * Records of other files that must never get ahead of the journal, such as those of a
+ * {@link HistoryLog}, can be {@link #appendTo(File, String) queued} with the journal records.
+ * Every record is written in the order it was queued, and each file's records are persisted
+ * before the records queued after them are written.
+ * </p>
+ */
+public class JournalWriter implements Runnable {
+    /** Default time the background writer waits for more records before writing a batch. */
+    public static final long DEFAULT_WINDOW_MILLIS = 50;
+
+    /** Default number of records that triggers a write without waiting for the window. */
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    private final File journalFile;
+    private final Durability durability;
+    private final long windowMillis;
+    private final int maxBatch;
+
+    /** Records queued but not yet written. */
+    private final ArrayList<Record> buffer = new ArrayList<>();
+
+    /** Number of records ever queued. */
+    private long appended;
+
+    /** Number of records ever written. */
+    private long written;
+
+    /** Whether a caller is waiting in {@link #flush()} for the current batch. */
+    private boolean isFlushRequested;
+
+    /** The last write failure, reported to the next caller. */
+    private IOException failure;
+
+    /** The background writer thread, or {@code null} when records are written directly. */
+    private Thread thread;
+
+    /** Hook flushing the queued records when the program exits, or {@code null} if there is none. */
+    private Thread shutdownHook;
+
+    /**
+     * Constructs a writer for the given journal file, starting its background thread if needed.
+     *
+     * @param journalFile  the journal file to append to
+     * @param durability   how strongly records are persisted
+     * @param windowMillis how long to wait for more records before writing a batch
+     * @param maxBatch     how many queued records trigger a write without waiting
+     */
+    public JournalWriter(File journalFile, Durability durability, long windowMillis, int maxBatch) {
+        assert windowMillis >= 0 : "Batch window must not be negative";
+        assert maxBatch > 0 : "Batch size must be positive";
+
+        this.journalFile = journalFile;
+        this.durability = durability;
+        this.windowMillis = windowMillis;
+        this.maxBatch = maxBatch;
+
+        if (durability != Durability.FLUSH_PER_COMMAND) {
+            thread = new Thread(this, "journal-writer");
+            thread.setDaemon(true);
+            thread.start();
+            shutdownHook = new Thread(() -> {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    System.out.println("Failed to save journal: " + e.getMessage());
+                }
+            });
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    /**
+     * Appends a record to the journal, or queues it for the background writer.
+     *
+     * @param record the record to append
+     * @throws IOException if the record, or an earlier queued record, could not be written
+     */
+    public void append(String record) throws IOException {
+        appendTo(journalFile, record);
+    }
+
+    /**
+     * Appends a record to another file, or queues it for the background writer after every
+     * journal record queued so far.
+     *
+     * @param file   the file to append to, which is created if needed
+     * @param record the record to append
+     * @throws IOException if the record, or an earlier queued record, could not be written
+     */
+    public void appendTo(File file, String record) throws IOException {
+        if (durability == Durability.FLUSH_PER_COMMAND) {
+            write(List.of(new Record(file, record)));
+            return;
+        }
+
+        synchronized (this) {
+            throwFailure();
+            buffer.add(new Record(file, record));
+            appended++;
+            if (buffer.size() >= maxBatch) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Appends several records to the journal in a single write, or queues them together for
+     * the background writer.
+     *
+     * @param records the records to append
+     * @throws IOException if the records, or an earlier queued record, could not be written
+     */
+    public void appendAll(List<String> records) throws IOException {
+        List<Record> journalRecords = new ArrayList<>(records.size());
+        for (String record : records) {
+            journalRecords.add(new Record(journalFile, record));
+        }
+        if (durability == Durability.FLUSH_PER_COMMAND) {
+            write(journalRecords);
+            return;
+        }
+
+        synchronized (this) {
+            throwFailure();
+            buffer.addAll(journalRecords);
+            appended += records.size();
+            if (buffer.size() >= maxBatch) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until every record queued so far has been written.
+     * Must be called before the journal file is moved.
+     *
+     * @throws IOException if a queued record could not be written
+     */
+    public synchronized void flush() throws IOException {
+        long target = appended;
+        while (written < target && failure == null) {
+            isFlushRequested = true;
+            notifyAll();
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throwFailure();
+    }
+
+    /**
+     * Writes every queued record, then stops the background thread and removes the shutdown
+     * hook. The writer must not be used afterwards.
+     *
+     * @throws IOException if a queued record could not be written
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (thread != null) {
+                thread.interrupt();
+                thread = null;
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    // The program is already exiting, and the hook flushes nothing more.
+                }
+                shutdownHook = null;
+            }
+        }
+    }
+
+    /**
+     * Runs the background writer, writing queued records in batches until the program exits
+     * or the writer is {@link #close() closed}.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            List<Record> batch;
+            try {
+                batch = takeBatch();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            IOException error = null;
+            try {
+                write(batch);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                if (error != null) {
+                    failure = error;
+                }
+                written += batch.size();
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits for at least one record, then for the batch window to pass, the batch to fill up,
+     * or a flush to be requested, and removes the queued records.
+     *
+     * @return the records to write
+     * @throws InterruptedException if the writer thread is interrupted
+     */
+    private synchronized List<Record> takeBatch() throws InterruptedException {
+        while (buffer.isEmpty()) {
+            wait();
+        }
+
+        long deadline = System.currentTimeMillis() + windowMillis;
+        long remaining = windowMillis;
+        while (buffer.size() < maxBatch && !isFlushRequested && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+
+        List<Record> batch = new ArrayList<>(buffer);
+        buffer.clear();
+        isFlushRequested = false;
+        return batch;
+    }
+
+    /**
+     * Appends the given records to their files in order, writing each run of records for the
+     * same file in a single write.
+     *
+     * @param records the records to write
+     * @throws IOException if a file cannot be written
+     */
+    private void write(List<Record> records) throws IOException {
+        int start = 0;
+        while (start < records.size()) {
+            File file = records.get(start).file;
+            int end = start + 1;
+            while (end < records.size() && records.get(end).file.equals(file)) {
+                end++;
+            }
+            List<String> lines = new ArrayList<>(end - start);
+            for (Record record : records.subList(start, end)) {
+                lines.add(record.line);
+            }
+            write(file, lines);
+            start = end;
+        }
+    }
+
+    /**
+     * Appends the given lines to a file in a single write.
+     *
+     * @param file  the file to append to
+     * @param lines the lines to write
+     * @throws IOException if the file cannot be written
+     */
+    private void write(File file, List<String> lines) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            if (durability != Durability.OS_BUFFERED) {
+                out.getFD().sync();
+            }
+        }
+    }
+
+    private void throwFailure() throws IOException {
+        if (failure != null) {
+            IOException error = failure;
+            failure = null;
+            throw error;
+        }
+    }
+
+    /**
+     * A record queued for the file it is appended to.
+     */
+    private static class Record {
+        private final File file;
+        private final String line;
+
+        Record(File file, String line) {
+            this.file = file;
+            this.line = line;
+        }
+    }
+}
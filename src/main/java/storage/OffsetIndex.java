@@ -0,0 +1,287 @@
+package storage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+import task.Task;
+import task.TaskList;
+
+/**
+ * The byte offset, ID and completion status of every record in a text data file,
+ * persisted in a small sidecar file ({@code <data>.idx}) next to it.
+ * <p>
+ * The sidecar stores the record count, the offsets, the IDs, a bitmap of done records and a fingerprint
+ * of the data file: its length, its modification time and a CRC32 of its first and last
+ * {@value #SAMPLE_BYTES} bytes. The fingerprint is checked when the sidecar is read, so a
+ * sidecar left behind by an older version of the data file is ignored and rebuilt instead of
+ * being trusted. Hashing samples rather than the whole file keeps the check independent of
+ * the file size.
+ * </p>
+ */
+public class OffsetIndex {
+    /** Suffix appended to the data file path to name its sidecar. */
+    public static final String SUFFIX = ".idx";
+
+    /** Number of bytes hashed at each end of the data file. */
+    private static final int SAMPLE_BYTES = 64 * 1024;
+
+    private static final int MAGIC = 0x4a544958;
+    private static final byte VERSION = 3;
+
+    private final long[] offsets;
+    private final long[] ids;
+    private final int count;
+    private final BitSet done;
+
+    /**
+     * Constructs an index from its parts.
+     *
+     * @param offsets the offset of each record, of which the first {@code count} are used
+     * @param ids     the ID of each record, of which the first {@code count} are used
+     * @param count   the number of records
+     * @param done    the records that are marked as done
+     */
+    public OffsetIndex(long[] offsets, long[] ids, int count, BitSet done) {
+        this.offsets = offsets;
+        this.ids = ids;
+        this.count = count;
+        this.done = done;
+    }
+
+    /**
+     * Returns the number of records in the data file.
+     *
+     * @return the record count
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the byte offset of a record in the data file.
+     *
+     * @param record the record number
+     * @return the offset of the record's line
+     */
+    public long offset(int record) {
+        return offsets[record];
+    }
+
+    /**
+     * Returns the ID of the task of a record. Records saved without an ID, or with the ID of an
+     * earlier record, are given one as {@link TaskList#assignIds(long[], int)} gives it when the
+     * file is loaded eagerly.
+     *
+     * @param record the record number
+     * @return the ID of the record's task
+     */
+    public long id(int record) {
+        return ids[record];
+    }
+
+    /**
+     * Returns whether a record is marked as done in the data file.
+     *
+     * @param record the record number
+     * @return {@code true} if the record is done
+     */
+    public boolean isDone(int record) {
+        return done.get(record);
+    }
+
+    /**
+     * Returns the number of records marked as done in the data file.
+     *
+     * @return the number of done records
+     */
+    public int doneCount() {
+        return done.cardinality();
+    }
+
+    /**
+     * Returns the index of a text data file, reading its sidecar if it is up to date,
+     * or scanning the file and writing a new sidecar otherwise.
+     *
+     * @param dataFile the data file
+     * @param data     the mapped contents of the data file
+     * @return the index of the data file
+     * @throws IOException if the data file cannot be read
+     */
+    public static OffsetIndex load(File dataFile, ByteBuffer data) throws IOException {
+        File sidecar = sidecarOf(dataFile);
+        OffsetIndex index = read(sidecar, dataFile);
+        if (index != null) {
+            return index;
+        }
+
+        index = scan(data);
+        try {
+            index.write(dataFile);
+        } catch (IOException e) {
+            System.out.println("Failed to save index: " + e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Returns the sidecar file of a data file.
+     *
+     * @param dataFile the data file
+     * @return the sidecar file
+     */
+    public static File sidecarOf(File dataFile) {
+        return new File(dataFile.getPath() + SUFFIX);
+    }
+
+    /**
+     * Finds every task of a text data file, its ID and whether it is marked as done. Each line is
+     * parsed once to check it, and corrupted lines are skipped with a warning exactly as
+     * {@link Storage#load()} skips them, so that record numbers agree with an eager load of the
+     * same file. The parsed tasks are not kept.
+     *
+     * @param data the mapped contents of the data file
+     * @return the index of the data file
+     */
+    public static OffsetIndex scan(ByteBuffer data) {
+        long[] offsets = new long[1024];
+        long[] ids = new long[1024];
+        BitSet done = new BitSet();
+        int count = 0;
+
+        int lineStart = 0;
+        int limit = data.limit();
+        for (int i = 0; i <= limit; i++) {
+            if (i < limit && data.get(i) != '\n') {
+                continue;
+            }
+            int lineEnd = i > lineStart && data.get(i - 1) == '\r' ? i - 1 : i;
+            if (lineEnd > lineStart) {
+                byte[] bytes = new byte[lineEnd - lineStart];
+                data.get(lineStart, bytes);
+                String line = new String(bytes, Charset.defaultCharset());
+                Task task = Storage.parseLine(line);
+                if (task == null) {
+                    System.out.println("Skipping corrupted line: " + line);
+                } else {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                        ids = Arrays.copyOf(ids, count * 2);
+                    }
+                    if (task.isDone()) {
+                        done.set(count);
+                    }
+                    ids[count] = task.getId();
+                    offsets[count++] = lineStart;
+                }
+            }
+            lineStart = i + 1;
+        }
+        TaskList.assignIds(ids, count);
+        return new OffsetIndex(offsets, ids, count, done);
+    }
+
+    /**
+     * Reads the sidecar of a data file.
+     *
+     * @param sidecar  the sidecar file
+     * @param dataFile the data file the sidecar should describe
+     * @return the index, or {@code null} if the sidecar is missing, unreadable or out of date
+     */
+    static OffsetIndex read(File sidecar, File dataFile) {
+        if (!sidecar.exists()) {
+            return null;
+        }
+
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(sidecar.toPath()));
+            if (in.getInt() != MAGIC || in.get() != VERSION) {
+                return null;
+            }
+            if (in.getLong() != dataFile.length() || in.getLong() != dataFile.lastModified()
+                    || in.getLong() != fingerprint(dataFile)) {
+                return null;
+            }
+
+            int count = in.getInt();
+            long[] offsets = new long[count];
+            in.asLongBuffer().get(offsets);
+            in.position(in.position() + count * Long.BYTES);
+            long[] ids = new long[count];
+            in.asLongBuffer().get(ids);
+            in.position(in.position() + count * Long.BYTES);
+            long[] words = new long[in.getInt()];
+            in.asLongBuffer().get(words);
+            return new OffsetIndex(offsets, ids, count, BitSet.valueOf(words));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes this index as the sidecar of the given data file, replacing any older sidecar.
+     *
+     * @param dataFile the data file this index describes
+     * @throws IOException if the sidecar cannot be written
+     */
+    public void write(File dataFile) throws IOException {
+        File sidecar = sidecarOf(dataFile);
+        File temp = new File(sidecar.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(dataFile.length());
+            out.writeLong(dataFile.lastModified());
+            out.writeLong(fingerprint(dataFile));
+
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeLong(offsets[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                out.writeLong(ids[i]);
+            }
+            long[] words = done.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+        Files.move(temp.toPath(), sidecar.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Hashes the first and last {@value #SAMPLE_BYTES} bytes of a file.
+     *
+     * @param file the file to hash
+     * @return the CRC32 of the sampled bytes
+     * @throws IOException if the file cannot be read
+     */
+    private static long fingerprint(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            long length = in.length();
+            byte[] head = new byte[(int) Math.min(SAMPLE_BYTES, length)];
+            in.readFully(head);
+            crc.update(head);
+
+            long tailStart = Math.max(head.length, length - SAMPLE_BYTES);
+            byte[] tail = new byte[(int) (length - tailStart)];
+            in.seek(tailStart);
+            in.readFully(tail);
+            crc.update(tail);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,453 @@
+package storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import task.Task;
+import task.TaskStore;
+
+/**
+ * Stores tasks lazily, reading them from a text data file only when they are first needed.
+ * <p>
+ * The store keeps one slot per task. A slot holds either the number of the task's record in
+ * the data file, located through an {@link OffsetIndex}, or, once the task is added or changed
+ * in memory, a reference to a resident task. Tasks read from the file are parsed a page at a
+ * time and kept in a bounded, least-recently-used page cache, so memory use follows the pages
+ * in use rather than the size of the file. As long as a task read from the file is still
+ * referenced elsewhere, for example by an index of the {@code TaskList}, reading it again returns
+ * the same object.
+ * </p>
+ * <p>
+ * The data file is mapped when the store is opened and is never written through the store.
+ * The mapping keeps referring to the original file if a compaction later replaces it.
+ * </p>
+ */
+public class PagedTaskStore implements TaskStore {
+    /** Number of consecutive tasks parsed and cached together. */
+    public static final int PAGE_SIZE = 256;
+
+    /** The data file, whose index is dropped if it turns out not to match the file. */
+    private final File file;
+
+    /** The mapped contents of the data file. */
+    private final ByteBuffer data;
+
+    /** Where each record of the data file starts, and whether it is done. */
+    private final OffsetIndex index;
+
+    /** Record number of each task, or {@code -(i + 1)} for the resident task at index {@code i}. */
+    private long[] slots;
+
+    /** Number of tasks in the store. */
+    private int size;
+
+    /** Tasks added or changed since the file was opened, with {@code null} for released slots. */
+    private final ArrayList<Task> resident = new ArrayList<>();
+
+    /** Released positions in {@link #resident}, reused before the list grows. */
+    private final ArrayDeque<Integer> freeResident = new ArrayDeque<>();
+
+    /** Recently used pages of parsed tasks, keyed by page number. */
+    private final LinkedHashMap<Integer, Task[]> pages;
+
+    /** Tasks parsed from the file that may still be referenced, keyed by record number. */
+    private final HashMap<Long, ParsedTask> parsed = new HashMap<>();
+
+    /** Parsed tasks that are no longer referenced anywhere. */
+    private final ReferenceQueue<Task> collected = new ReferenceQueue<>();
+
+    /**
+     * Constructs a store over a mapped data file.
+     *
+     * @param file       the data file
+     * @param data       the mapped contents of the data file
+     * @param index      the index of the records in the data file
+     * @param cachePages the maximum number of pages kept in memory
+     */
+    public PagedTaskStore(File file, ByteBuffer data, OffsetIndex index, int cachePages) {
+        assert cachePages > 0 : "Page cache must hold at least one page";
+
+        this.file = file;
+        this.data = data;
+        this.index = index;
+        this.size = index.count();
+        this.slots = new long[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task[]> eldest) {
+                return size() > cachePages;
+            }
+        };
+    }
+
+    /**
+     * Opens a text data file without keeping any of its tasks in memory. Where each task's line
+     * starts is read from the file's {@link OffsetIndex} sidecar, or found by scanning the file if
+     * the sidecar is missing or out of date.
+     *
+     * @param file       the data file
+     * @param cachePages the maximum number of pages kept in memory
+     * @return a store over the file
+     * @throws IOException if the file cannot be mapped
+     */
+    public static PagedTaskStore open(File file, int cachePages) throws IOException {
+        ByteBuffer data = map(file);
+        return new PagedTaskStore(file, data, OffsetIndex.load(file, data), cachePages);
+    }
+
+    /**
+     * Maps a data file read-only.
+     *
+     * @param file the data file
+     * @return the mapped contents
+     * @throws IOException if the file cannot be mapped or is too large to map at once
+     */
+    static ByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Data file is too large to load lazily: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return buffer;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        long slot = slots[index];
+        if (slot < 0) {
+            return resident.get((int) (-slot - 1));
+        }
+
+        int pageNumber = index / PAGE_SIZE;
+        Task[] page = pages.get(pageNumber);
+        if (page == null) {
+            page = loadPage(pageNumber);
+            pages.put(pageNumber, page);
+        }
+        return page[index % PAGE_SIZE];
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(16, size * 2));
+        }
+        System.arraycopy(slots, index, slots, index + 1, size - index);
+        slots[index] = pin(task);
+        size++;
+        invalidateFrom(index);
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task task = get(index);
+        unpin(slots[index]);
+        System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+        size--;
+        invalidateFrom(index);
+        return task;
+    }
+
+    /**
+     * Removes the tasks at the given positions in a single pass over the slots after the
+     * first of them.
+     *
+     * @param indices the positions of the tasks to remove, in ascending order without repeats
+     * @return the removed tasks, in the order of their positions
+     */
+    @Override
+    public List<Task> removeAll(int[] indices) {
+        List<Task> removed = new ArrayList<>(indices.length);
+        if (indices.length == 0) {
+            return removed;
+        }
+        for (int index : indices) {
+            removed.add(get(index));
+        }
+        int to = indices[0];
+        int next = 0;
+        for (int from = indices[0]; from < size; from++) {
+            if (next < indices.length && indices[next] == from) {
+                unpin(slots[from]);
+                next++;
+            } else {
+                slots[to++] = slots[from];
+            }
+        }
+        size = to;
+        invalidateFrom(indices[0]);
+        return removed;
+    }
+
+    /**
+     * Frees the resident slot of a removed task, if it had one.
+     *
+     * @param slot the slot of the removed task
+     */
+    private void unpin(long slot) {
+        if (slot < 0) {
+            resident.set((int) (-slot - 1), null);
+            freeResident.push((int) (-slot - 1));
+        }
+    }
+
+    @Override
+    public void set(int index, Task task) {
+        long slot = slots[index];
+        if (slot < 0) {
+            resident.set((int) (-slot - 1), task);
+        } else {
+            slots[index] = pin(task);
+        }
+    }
+
+    @Override
+    public List<Task> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return PagedTaskStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns the tasks as they are now. The slots are copied, but tasks still on disk are
+     * parsed each time they are read from the snapshot, without going through the page cache.
+     *
+     * @return a read-only view of the current tasks
+     */
+    @Override
+    public List<Task> snapshot() {
+        long[] snapshotSlots = Arrays.copyOf(slots, size);
+        List<Task> snapshotResident = new ArrayList<>(resident);
+        return Collections.unmodifiableList(new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                long slot = snapshotSlots[index];
+                return slot < 0
+                        ? snapshotResident.get((int) (-slot - 1))
+                        : readTask((int) slot);
+            }
+
+            @Override
+            public int size() {
+                return snapshotSlots.length;
+            }
+        });
+    }
+
+    /**
+     * Returns whether the task at the given position is done, without reading it from the
+     * data file if it has not been changed.
+     *
+     * @param index the position of the task
+     * @return {@code true} if the task is done
+     */
+    @Override
+    public boolean isDone(int index) {
+        long slot = slots[index];
+        return slot < 0 ? resident.get((int) (-slot - 1)).isDone() : this.index.isDone((int) slot);
+    }
+
+    /**
+     * Returns the ID of the task at the given position, reading it from the {@link OffsetIndex}
+     * if the task has not been changed.
+     *
+     * @param index the position of the task
+     * @return the ID of the task
+     */
+    @Override
+    public long idOf(int index) {
+        long slot = slots[index];
+        return slot < 0 ? resident.get((int) (-slot - 1)).getId() : this.index.id((int) slot);
+    }
+
+    /**
+     * Returns the type code of the task at the given position, reading only the first byte of
+     * its line if it has not been changed.
+     *
+     * @param index the position of the task
+     * @return the type code of the task
+     */
+    @Override
+    public char typeOf(int index) {
+        long slot = slots[index];
+        if (slot >= 0) {
+            byte type = data.get((int) this.index.offset((int) slot));
+            if (type == 'T' || type == 'D' || type == 'E') {
+                return (char) type;
+            }
+        }
+        return TaskStore.typeOf(get(index));
+    }
+
+    /**
+     * Returns the number of pages currently cached.
+     *
+     * @return the number of cached pages
+     */
+    public int cachedPages() {
+        return pages.size();
+    }
+
+    /**
+     * Parses every task of a page that is still on disk.
+     *
+     * @param pageNumber the page to load
+     * @return the tasks of the page, with {@code null} for resident tasks
+     */
+    private Task[] loadPage(int pageNumber) {
+        expungeCollected();
+        Task[] page = new Task[PAGE_SIZE];
+        int start = pageNumber * PAGE_SIZE;
+        int end = Math.min(start + PAGE_SIZE, size);
+        for (int i = start; i < end; i++) {
+            if (slots[i] >= 0) {
+                page[i - start] = readRecord(slots[i]);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Returns the task of a record, reusing the object parsed earlier if it is still referenced.
+     *
+     * @param record the record number
+     * @return the task of the record
+     */
+    private Task readRecord(long record) {
+        ParsedTask reference = parsed.get(record);
+        Task task = reference == null ? null : reference.get();
+        if (task == null) {
+            task = readTask((int) record);
+            parsed.put(record, new ParsedTask(task, record, collected));
+        }
+        return task;
+    }
+
+    /**
+     * Forgets parsed tasks that have been garbage collected.
+     */
+    private void expungeCollected() {
+        Reference<? extends Task> reference;
+        while ((reference = collected.poll()) != null) {
+            ParsedTask parsedTask = (ParsedTask) reference;
+            parsed.remove(parsedTask.record, parsedTask);
+        }
+    }
+
+    /**
+     * Parses the line starting at the given offset. The task is given the ID the index holds for
+     * the record.
+     * <p>
+     * The {@link OffsetIndex} only holds lines that parsed when it was built, so a line failing
+     * to parse means the file was changed behind the index in a way its fingerprint missed. The
+     * positions of every task may then be wrong, and no task is made up for the line: the
+     * sidecar is deleted, so that the next start scans the file and skips the line as an eager
+     * load does, and the read fails.
+     * </p>
+     *
+     * @param record the record number
+     * @return the parsed task
+     * @throws UncheckedIOException if the line no longer parses
+     */
+    private Task readTask(int record) {
+        int start = (int) index.offset(record);
+        int end = start;
+        while (end < data.limit() && data.get(end) != '\n') {
+            end++;
+        }
+        if (end > start && data.get(end - 1) == '\r') {
+            end--;
+        }
+
+        byte[] bytes = new byte[end - start];
+        data.get(start, bytes);
+        String line = new String(bytes, Charset.defaultCharset());
+        Task task = Storage.parseLine(line);
+        if (task == null) {
+            try {
+                Files.deleteIfExists(OffsetIndex.sidecarOf(file).toPath());
+            } catch (IOException e) {
+                System.out.println("Failed to delete index: " + e.getMessage());
+            }
+            throw new UncheckedIOException(new IOException("Your cart file no longer matches its index. "
+                    + "Restart JimmyTimmy to rebuild it."));
+        }
+        task.setId(index.id(record));
+        return task;
+    }
+
+    /**
+     * Moves a task into memory, reusing a released position if there is one.
+     *
+     * @param task the task to keep
+     * @return the slot referring to the task
+     */
+    private long pin(Task task) {
+        Integer free = freeResident.poll();
+        if (free != null) {
+            resident.set(free, task);
+            return -(free + 1);
+        }
+        resident.add(task);
+        return -resident.size();
+    }
+
+    /**
+     * Drops cached pages that start at or after the page holding the given index,
+     * since their positions have shifted.
+     *
+     * @param index the first index whose position changed
+     */
+    private void invalidateFrom(int index) {
+        int pageNumber = index / PAGE_SIZE;
+        pages.keySet().removeIf(cached -> cached >= pageNumber);
+    }
+
+    /**
+     * A weak reference to a task parsed from the file, remembering the record it came from.
+     */
+    private static class ParsedTask extends WeakReference<Task> {
+        private final long record;
+
+        ParsedTask(Task task, long record, ReferenceQueue<Task> queue) {
+            super(task, queue);
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Seals lines of the text storage format with a CRC32 of their contents, so that a line
+ * damaged on disk or cut short by a crash can be told apart from a valid one without
+ * trying to parse it.
+ * <p>
+ * A sealed line ends with a checksum field of eight hexadecimal digits,
+ * e.g. {@code T | 0 | milk | #1a2b3c4d}. Journal, shard and history records have always been
+ * sealed, so {@link #unseal(String)} rejects a record without a valid checksum field. Only lines
+ * of the data file, which may have been written by older versions or edited by hand, are read
+ * with {@link #unsealIfSealed(String)}, which accepts lines without a checksum field as they are.
+ * </p>
+ */
+public class RecordChecksum {
+    /** Separator and tag in front of the checksum digits. */
+    private static final String PREFIX = " | #";
+
+    /** Number of hexadecimal digits in a checksum. */
+    private static final int DIGITS = 8;
+
+    /** Length of the checksum field, including its separator and tag. */
+    private static final int FIELD_LENGTH = PREFIX.length() + DIGITS;
+
+    /**
+     * Appends a checksum field to a line.
+     *
+     * @param line the line to seal
+     * @return the line followed by its checksum field
+     */
+    public static String seal(String line) {
+        String digits = Long.toHexString(checksum(line));
+        return line + PREFIX + "0".repeat(DIGITS - digits.length()) + digits;
+    }
+
+    /**
+     * Verifies and removes the checksum field of a record that must be sealed.
+     *
+     * @param line the record to verify
+     * @return the record without its checksum field, or {@code null} if the checksum field is
+     *         missing, malformed or does not match
+     */
+    public static String unseal(String line) {
+        if (!hasField(line)) {
+            return null;
+        }
+
+        int fieldStart = line.length() - FIELD_LENGTH;
+        long expected = Long.parseLong(line.substring(fieldStart + PREFIX.length()), 16);
+        String body = line.substring(0, fieldStart);
+        return checksum(body) == expected ? body : null;
+    }
+
+    /**
+     * Verifies and removes the checksum field of a line of the data file, which may not be sealed.
+     *
+     * @param line the line to verify
+     * @return the line without its checksum field, the line itself if it has no checksum field,
+     *         or {@code null} if the checksum does not match
+     */
+    public static String unsealIfSealed(String line) {
+        return hasField(line) ? unseal(line) : line;
+    }
+
+    /**
+     * Returns whether a line ends with a well-formed checksum field.
+     */
+    private static boolean hasField(String line) {
+        int fieldStart = line.length() - FIELD_LENGTH;
+        if (fieldStart < 0 || !line.startsWith(PREFIX, fieldStart)) {
+            return false;
+        }
+        for (int i = fieldStart + PREFIX.length(); i < line.length(); i++) {
+            if (Character.digit(line.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long checksum(String line) {
+        CRC32 crc = new CRC32();
+        crc.update(line.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
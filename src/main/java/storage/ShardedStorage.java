@@ -0,0 +1,381 @@
+package storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import task.Deadline;
+import task.Event;
+import task.Task;
+import task.TaskList;
+import task.ToDo;
+
+/**
+ * Saves tasks in a directory of shard files, partitioned by task type and month.
+ * <p>
+ * To-dos go to {@code T.txt}, deadlines to {@code D-yyyy-MM.txt} by the month they are due,
+ * and events to {@code E-yyyy-MM.txt} by the month they start. Each line is a task line of
+ * the text format, prefixed with an ordering key ({@code key | T | 0 | milk}) and sealed with
+ * a {@link RecordChecksum}. The key records the task's position in the list across all shards.
+ * Keys are spaced apart so that a task can be inserted between two others without renumbering
+ * the rest.
+ * </p>
+ * <p>
+ * A change to a task only rewrites the shard holding it, and an added task is appended to
+ * its shard. Queries limited to a range of months only read the shards of those months.
+ * </p>
+ * <p>
+ * Tasks are tracked by their IDs rather than as objects, since a list may put a copy of a task
+ * in its place when the task is marked or unmarked.
+ * </p>
+ */
+public class ShardedStorage {
+    /** Distance between the keys of consecutive tasks when keys are assigned afresh. */
+    private static final long KEY_GAP = 1L << 20;
+
+    /** Name of the shard holding every to-do. */
+    private static final String TODO_SHARD = "T";
+
+    /** Extension of every shard file. */
+    private static final String EXTENSION = ".txt";
+
+    private final File directory;
+
+    /** Ordering key of every loaded task, by task ID. */
+    private final HashMap<Long, Long> keys = new HashMap<>();
+
+    /** Tasks of every shard by task ID, by shard name. */
+    private final HashMap<String, Map<Long, Task>> shards = new HashMap<>();
+
+    /**
+     * Constructs a sharded storage in the given directory.
+     *
+     * @param directory the directory holding the shard files
+     */
+    public ShardedStorage(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns whether the shard directory exists.
+     *
+     * @return {@code true} if tasks have been saved in shards before
+     */
+    public boolean exists() {
+        return directory.isDirectory();
+    }
+
+    /**
+     * Loads the tasks of every shard, in list order, giving an ID to each task saved without one.
+     *
+     * @return the tasks
+     * @throws IOException if a shard cannot be read
+     */
+    public ArrayList<Task> loadAll() throws IOException {
+        keys.clear();
+        shards.clear();
+
+        IdentityHashMap<Task, Long> loadedKeys = new IdentityHashMap<>();
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (File shard : listShards()) {
+            tasks.addAll(readShard(shard, loadedKeys));
+        }
+        tasks.sort(Comparator.comparingLong(loadedKeys::get));
+        TaskList.assignIds(tasks);
+        for (Task task : tasks) {
+            track(task, loadedKeys.get(task));
+        }
+        return tasks;
+    }
+
+    /**
+     * Reads the deadlines due and events starting within a range of months, in list order,
+     * reading only the shards of those months. The tasks are copies that are not tracked by
+     * this storage.
+     *
+     * @param from the first month to include
+     * @param to   the last month to include
+     * @return the deadlines and events in the range
+     * @throws IOException if a shard cannot be read
+     */
+    public List<Task> loadMonths(YearMonth from, YearMonth to) throws IOException {
+        IdentityHashMap<Task, Long> rangeKeys = new IdentityHashMap<>();
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (File shard : listShards()) {
+            String name = shardName(shard);
+            if (name.equals(TODO_SHARD)) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(name.substring(2));
+            if (month.isBefore(from) || month.isAfter(to)) {
+                continue;
+            }
+            for (Task task : readShard(shard, rangeKeys)) {
+                tasks.add(task);
+            }
+        }
+        tasks.sort(Comparator.comparingLong(rangeKeys::get));
+        return tasks;
+    }
+
+    /**
+     * Saves every task, assigning fresh keys and replacing all shards.
+     *
+     * @param tasks the tasks in list order
+     * @throws IOException if a shard cannot be written
+     */
+    public void saveAll(List<Task> tasks) throws IOException {
+        keys.clear();
+        shards.clear();
+        for (int i = 0; i < tasks.size(); i++) {
+            track(tasks.get(i), (i + 1) * KEY_GAP);
+        }
+
+        directory.mkdirs();
+        for (File shard : listShards()) {
+            if (!shards.containsKey(shardName(shard))) {
+                Files.delete(shard.toPath());
+            }
+        }
+        for (String name : shards.keySet()) {
+            writeShard(name);
+        }
+    }
+
+    /**
+     * Saves a task inserted into the list, appending it to its shard and forcing the append
+     * to disk.
+     *
+     * @param tasks the list after the insertion
+     * @param index the index the task was inserted at
+     * @param task  the inserted task
+     * @throws IOException if the shard cannot be written
+     */
+    public void add(TaskList tasks, int index, Task task) throws IOException {
+        Long key = keyBetween(tasks.getTasks(), index);
+        if (key == null) {
+            saveAll(tasks.getTasks());
+            return;
+        }
+
+        track(task, key);
+        directory.mkdirs();
+        try (FileOutputStream out = new FileOutputStream(shardFile(shardOf(task)), true)) {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out));
+            writer.write(formatLine(key, task));
+            writer.newLine();
+            writer.flush();
+            out.getFD().sync();
+        }
+    }
+
+    /**
+     * Saves the removal of a task by rewriting its shard.
+     *
+     * @param task the removed task
+     * @throws IOException if the shard cannot be written
+     */
+    public void remove(Task task) throws IOException {
+        keys.remove(task.getId());
+        String name = shardOf(task);
+        Map<Long, Task> shard = shards.get(name);
+        if (shard != null) {
+            shard.remove(task.getId());
+        }
+        writeShard(name);
+    }
+
+    /**
+     * Saves a change to a task by rewriting its shard. The task replaces the one with its ID,
+     * which may be a different object.
+     *
+     * @param task the changed task
+     * @throws IOException if the shard cannot be written
+     */
+    public void update(Task task) throws IOException {
+        String name = shardOf(task);
+        shards.computeIfAbsent(name, shard -> new LinkedHashMap<>()).put(task.getId(), task);
+        writeShard(name);
+    }
+
+    /**
+     * Records the key of a task and adds it to its shard.
+     *
+     * @param task the task, which must have an ID
+     * @param key  the ordering key of the task
+     */
+    private void track(Task task, long key) {
+        assert task.getId() > 0 : "Task must have an ID";
+
+        keys.put(task.getId(), key);
+        shards.computeIfAbsent(shardOf(task), name -> new LinkedHashMap<>()).put(task.getId(), task);
+    }
+
+    /**
+     * Returns a key between those of the nearest saved tasks around the given index. Tasks
+     * inserted by the same change but not saved yet are passed over.
+     *
+     * @param tasks the list after the task was inserted
+     * @param index the index of the inserted task
+     * @return the key, or {@code null} if the neighbouring keys leave no room
+     */
+    private Long keyBetween(List<Task> tasks, int index) {
+        Long next = null;
+        for (int i = index + 1; i < tasks.size() && next == null; i++) {
+            next = keys.get(tasks.get(i).getId());
+        }
+        Long previous = null;
+        for (int i = index - 1; i >= 0 && previous == null; i--) {
+            previous = keys.get(tasks.get(i).getId());
+        }
+        if (previous == null && next == null) {
+            return KEY_GAP;
+        } else if (next == null) {
+            return previous + KEY_GAP;
+        } else if (previous == null) {
+            return next - KEY_GAP;
+        } else if (next - previous < 2) {
+            return null;
+        }
+        return previous + (next - previous) / 2;
+    }
+
+    /**
+     * Rewrites a shard from the tasks it holds, deleting it once it is empty.
+     *
+     * @param name the shard to write
+     * @throws IOException if the shard cannot be written
+     */
+    private void writeShard(String name) throws IOException {
+        File shard = shardFile(name);
+        Map<Long, Task> tasks = shards.getOrDefault(name, Collections.emptyMap());
+        if (tasks.isEmpty()) {
+            shards.remove(name);
+            Files.deleteIfExists(shard.toPath());
+            return;
+        }
+
+        directory.mkdirs();
+        File temp = new File(shard.getPath() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp))) {
+            for (Task task : tasks.values()) {
+                writer.write(formatLine(keys.get(task.getId()), task));
+                writer.newLine();
+            }
+        }
+        Files.move(temp.toPath(), shard.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the tasks of a shard, recording their keys. Corrupted lines and lines without a valid
+     * checksum are skipped, with a warning printed to the console.
+     *
+     * @param shard    the shard file
+     * @param shardKeys where to record the key of each task
+     * @return the tasks of the shard
+     * @throws IOException if the shard cannot be read
+     */
+    private List<Task> readShard(File shard, Map<Task, Long> shardKeys) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(shard))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String body = RecordChecksum.unseal(line);
+                String[] data = body == null ? null : body.split(" \\| ", 2);
+                Long key = data == null || data.length < 2 ? null : parseKey(data[0].trim());
+                Task task = key == null ? null : Storage.parseTask(data[1]);
+                if (task == null) {
+                    System.out.println("Skipping corrupted line: " + line);
+                    continue;
+                }
+                shardKeys.put(task, key);
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Formats the line of a task in a shard, sealed with its checksum.
+     *
+     * @param key  the ordering key of the task
+     * @param task the task
+     * @return the shard line
+     */
+    private static String formatLine(long key, Task task) {
+        return RecordChecksum.seal(key + " | " + Storage.formatTask(task));
+    }
+
+    /**
+     * Parses the ordering key of a shard line.
+     *
+     * @param text the key field
+     * @return the key, or {@code null} if the field is not a number
+     */
+    private static Long parseKey(String text) {
+        int start = text.startsWith("-") ? 1 : 0;
+        if (text.length() <= start || text.length() > 19) {
+            return null;
+        }
+        long value = 0;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return start == 1 ? -value : value;
+    }
+
+    private List<File> listShards() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        ArrayList<File> shardFiles = new ArrayList<>();
+        if (files != null) {
+            Collections.addAll(shardFiles, files);
+        }
+        return shardFiles;
+    }
+
+    private File shardFile(String name) {
+        return new File(directory, name + EXTENSION);
+    }
+
+    private static String shardName(File shard) {
+        String name = shard.getName();
+        return name.substring(0, name.length() - EXTENSION.length());
+    }
+
+    /**
+     * Returns the name of the shard a task belongs to.
+     *
+     * @param task the task
+     * @return the shard name
+     */
+    static String shardOf(Task task) {
+        if (task instanceof Deadline) {
+            return "D-" + YearMonth.from(((Deadline) task).getDueDate());
+        } else if (task instanceof Event) {
+            return "E-" + YearMonth.from(((Event) task).getStart());
+        }
+        assert task instanceof ToDo : "Unknown task type";
+        return TODO_SHARD;
+    }
+}
@@ -1,29 +1,114 @@
 package storage;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import task.Deadline;
+import task.DescriptionPool;
 import task.Event;
+import task.PersistentTaskStore;
 import task.Task;
+import task.ArrayTaskStore;
+import task.TaskList;
+import task.TaskStore;
 import task.ToDo;
 
 /**
  * The {@code Storage} class is responsible for saving and loading tasks
  * to and from a local file. It ensures data persistence for the
  * JimmyTimmy application across program runs.
+ * <p>
+ * In journal mode, the data file only holds a snapshot of the list and every
+ * mutation is appended as a small record to a journal file next to it.
+ * Loading replays the journal on top of the snapshot, so the cost of a single
+ * command no longer depends on how many items are in the cart.
+ * Once the journal grows past a configurable size relative to the number of tasks,
+ * a {@link JournalCompactor} folds it back into the data file in the background,
+ * so loading stays proportional to the number of tasks rather than to the number of edits.
+ * Journal records can also be written behind the command by a {@link JournalWriter},
+ * as chosen by {@link #setDurability(Durability)}; call {@link #flush()} before exiting.
+ * </p>
+ * <p>
+ * The data file is written as text unless {@link #setFormat(StorageFormat)} selects the
+ * {@link BinaryFormat}. Loading recognises either format, and {@link #convert(StorageFormat)}
+ * rewrites an existing file in the other one.
+ * </p>
+ * <p>
+ * Saving writes a temporary file, forces it to disk and renames it over the data file, so a
+ * crash leaves either the old or the new file in place. Text lines and journal records are
+ * sealed with a {@link RecordChecksum}; a journal cut short by a crash is truncated back to its
+ * last intact record when it is replayed.
+ * </p>
+ * <p>
+ * In sharded mode, tasks are saved by a {@link ShardedStorage} in a directory next to the
+ * data file ({@code <data>.shards}), one shard per task type and month, so that a mutation
+ * only rewrites the shard it touches and {@link #loadMonths(YearMonth, YearMonth)} only reads
+ * the shards in range. An existing data file is split into shards the first time it is loaded,
+ * and is left as it was.
+ * </p>
  */
 public class Storage {
     /** The file where tasks are stored. */
     private final File file;
 
+    /** The journal of mutations applied on top of {@link #file}. */
+    private final File journalFile;
+
+    /** Whether mutations are appended to the journal instead of rewriting the file. */
+    private final boolean isJournaled;
+
+    /** Shards the tasks are saved in, or {@code null} if they are saved in the data file. */
+    private final ShardedStorage shards;
+
+    /** Folds the journal back into the data file once it grows too long. */
+    private final JournalCompactor compactor;
+
+    /** Log of the commands that can be undone and redone. */
+    private final HistoryLog historyLog;
+
+    /** Appends records to the journal, possibly from a background thread. */
+    private JournalWriter journalWriter;
+
+    /** Sealed journal records of the batch being recorded, or {@code null} outside a batch. */
+    private List<String> batch;
+
+    /** Whether the current batch has a change that is saved by rewriting the tasks when it ends. */
+    private boolean isBatchChanged;
+
+    /** Number of records appended since the journal was last rotated. */
+    private int journalRecords;
+
+    /** Minimum number of journal records before a compaction is considered. */
+    private int compactionMinRecords = DEFAULT_COMPACTION_MIN_RECORDS;
+
+    /** Minimum ratio of journal records to live tasks before a compaction is started. */
+    private double compactionRatio = DEFAULT_COMPACTION_RATIO;
+
+    /** Format the data file is written in. */
+    private StorageFormat format = StorageFormat.TEXT;
+
+    /** File size in bytes from which the data file is loaded by a {@link ChunkedLoader}. */
+    private long parallelLoadThreshold = DEFAULT_PARALLEL_LOAD_THRESHOLD;
+
     /** Date-time formatter used for deadlines and event times. */
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
 
@@ -36,13 +121,201 @@ public class Storage {
     /** Task type identifier for {@link Event}. */
     private static final String TYPE_EVENT = "E";
 
+    /** Separator and tag in front of the ID of a task at the end of its line. */
+    private static final String ID_FIELD = " | @";
+
+    /** Suffix appended to the data file path to name the file written before it replaces the data file. */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** Suffix appended to the data file path to name its shard directory. */
+    private static final String SHARDS_SUFFIX = ".shards";
+
+    /** Suffix appended to the data file path to name its journal. */
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    /** Suffix appended to the data file path to name its {@link HistoryLog}. */
+    private static final String HISTORY_SUFFIX = ".history";
+
+    /** Journal record inserting a task at an index. */
+    private static final String OP_ADD = "+";
+
+    /** Journal record removing the task at an index. */
+    private static final String OP_DELETE = "-";
+
+    /** Journal record marking the task at an index as done. */
+    private static final String OP_MARK = "M";
+
+    /** Journal record marking the task at an index as not done. */
+    private static final String OP_UNMARK = "U";
+
+    /** Default minimum number of journal records before compacting. */
+    private static final int DEFAULT_COMPACTION_MIN_RECORDS = 1000;
+
+    /** Default minimum ratio of journal records to live tasks before compacting. */
+    private static final double DEFAULT_COMPACTION_RATIO = 1.0;
+
+    /** Default file size from which the data file is loaded in parallel. */
+    private static final long DEFAULT_PARALLEL_LOAD_THRESHOLD = 16 * 1024 * 1024;
+
     /**
      * Constructs a new {@code Storage} object for a specific file path.
+     * Every mutation rewrites the whole file.
      *
      * @param filePath the path to the file used for saving and loading tasks
      */
     public Storage(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Constructs a new {@code Storage} object for a specific file path.
+     *
+     * @param filePath    the path to the file used for saving and loading tasks
+     * @param isJournaled whether mutations are appended to a journal file
+     *                    instead of rewriting the data file
+     */
+    public Storage(String filePath, boolean isJournaled) {
+        this(filePath, isJournaled, false);
+    }
+
+    /**
+     * Constructs a new {@code Storage} object for a specific file path.
+     * Journal mode and sharded mode cannot be combined.
+     *
+     * @param filePath    the path to the file used for saving and loading tasks
+     * @param isJournaled whether mutations are appended to a journal file
+     *                    instead of rewriting the data file
+     * @param isSharded   whether tasks are saved in shards by type and month
+     *                    instead of in the data file
+     */
+    public Storage(String filePath, boolean isJournaled, boolean isSharded) {
+        assert !(isJournaled && isSharded) : "Journal mode and sharded mode cannot be combined";
+
         this.file = new File(filePath);
+        this.journalFile = new File(filePath + JOURNAL_SUFFIX);
+        this.isJournaled = isJournaled;
+        this.shards = isSharded ? new ShardedStorage(new File(filePath + SHARDS_SUFFIX)) : null;
+        this.compactor = new JournalCompactor(this, file, journalFile);
+        this.historyLog = new HistoryLog(new File(filePath + HISTORY_SUFFIX));
+        this.journalWriter = new JournalWriter(journalFile, Durability.FLUSH_PER_COMMAND,
+                JournalWriter.DEFAULT_WINDOW_MILLIS, JournalWriter.DEFAULT_MAX_BATCH);
+        historyLog.writeThrough(journalWriter);
+    }
+
+    /**
+     * Sets the format the data file is written in from the next save or compaction on.
+     *
+     * @param format the format to write
+     */
+    public void setFormat(StorageFormat format) {
+        assert format != null : "Format must not be null";
+
+        this.format = format;
+    }
+
+    /**
+     * Rewrites the data file in the given format and keeps using that format.
+     *
+     * @param target the format to convert to
+     * @throws IOException if the file cannot be read or written
+     */
+    public void convert(StorageFormat target) throws IOException {
+        ArrayList<Task> tasks = load();
+        setFormat(target);
+        save(tasks);
+    }
+
+    /**
+     * Sets the data file size from which loading memory-maps the file and parses it in parallel.
+     * Smaller files are read line by line on the calling thread.
+     *
+     * @param bytes the file size threshold in bytes
+     */
+    public void setParallelLoadThreshold(long bytes) {
+        assert bytes >= 0 : "Threshold must not be negative";
+
+        this.parallelLoadThreshold = bytes;
+    }
+
+    /**
+     * Sets how strongly journal records are persisted before a command returns,
+     * using the default batch window and size.
+     *
+     * @param durability the durability level
+     * @throws IOException if records queued under the previous level cannot be written
+     */
+    public void setDurability(Durability durability) throws IOException {
+        setDurability(durability, JournalWriter.DEFAULT_WINDOW_MILLIS, JournalWriter.DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * Sets how strongly journal records are persisted before a command returns.
+     *
+     * @param durability   the durability level
+     * @param windowMillis how long the background writer waits for more records before writing
+     * @param maxBatch     how many queued records make the background writer write immediately
+     * @throws IOException if records queued under the previous level cannot be written
+     */
+    public void setDurability(Durability durability, long windowMillis, int maxBatch) throws IOException {
+        journalWriter.close();
+        journalWriter = new JournalWriter(journalFile, durability, windowMillis, maxBatch);
+        historyLog.writeThrough(journalWriter);
+    }
+
+    /**
+     * Waits until every queued journal record has been written and any running
+     * compaction has finished.
+     *
+     * @throws IOException if a queued record could not be written
+     */
+    public void flush() throws IOException {
+        journalWriter.flush();
+        compactor.awaitPending();
+    }
+
+    /**
+     * Sets when the journal is compacted into the data file. A compaction starts once the
+     * journal holds at least {@code minRecords} records and at least {@code ratio} records
+     * per live task.
+     *
+     * @param minRecords the minimum number of journal records
+     * @param ratio      the minimum number of journal records per live task
+     */
+    public void setCompactionThreshold(int minRecords, double ratio) {
+        assert minRecords >= 0 : "Minimum record count must not be negative";
+        assert ratio >= 0 : "Compaction ratio must not be negative";
+
+        this.compactionMinRecords = minRecords;
+        this.compactionRatio = ratio;
+    }
+
+    /**
+     * Returns whether this storage appends mutations to a journal.
+     *
+     * @return {@code true} if journal mode is enabled
+     */
+    public boolean isJournaled() {
+        return isJournaled;
+    }
+
+    /**
+     * Returns whether this storage saves tasks in shards.
+     *
+     * @return {@code true} if sharded mode is enabled
+     */
+    public boolean isSharded() {
+        return shards != null;
+    }
+
+    /**
+     * Returns the log next to the data file ({@code <data>.history}) in which the commands that
+     * can be undone and redone are kept across program runs. Its records are appended through
+     * the journal writer, so they are never persisted ahead of the journal records before them.
+     *
+     * @return the history log
+     */
+    public HistoryLog getHistoryLog() {
+        return historyLog;
     }
 
     /**
@@ -69,37 +342,109 @@ public class Storage {
      *     <li>Deadline: {@code D | isDone | description | yyyy-MM-dd HHmm}</li>
      *     <li>Event: {@code E | isDone | description | yyyy-MM-dd HHmm | yyyy-MM-dd HHmm}</li>
      * </ul>
+     * optionally followed by the task's ID ({@code | @id}) and the checksum field of a
+     * {@link RecordChecksum}. Well-formed lines are decoded by {@link TaskLineScanner}; anything else falls back to
+     * splitting the line and parsing each field, which tolerates extra whitespace.
      * </p>
      *
      * @param line the line from the storage file representing a task
-     * @return a {@code Task} object corresponding to the parsed line
-     * @throws Exception if the line is corrupted, contains an unknown type,
-     *                   or dates are incorrectly formatted
+     * @return a {@code Task} object corresponding to the parsed line, or {@code null} if the line
+     *         fails its checksum, is corrupted, contains an unknown type or has invalid dates
+     */
+    static Task parseLine(String line) {
+        String body = RecordChecksum.unsealIfSealed(line);
+        if (body == null) {
+            return null;
+        }
+        return parseTask(body);
+    }
+
+    /**
+     * Parses a task from a line written by {@link #formatTask(Task)}, without a checksum field.
+     * Used to read tasks held in records of other files.
+     *
+     * @param body the line representing a task
+     * @return the task, or {@code null} if the line is corrupted
      */
-    private Task parseLine(String line) throws Exception {
-        String[] data = line.split(" \\| ");
+    public static Task parseTask(String body) {
+        long id = 0;
+        int idStart = body.lastIndexOf(ID_FIELD);
+        if (idStart >= 0) {
+            id = parseNumber(body.substring(idStart + ID_FIELD.length()), 18);
+            if (id > 0) {
+                body = body.substring(0, idStart);
+            }
+        }
+
+        Task task = parseFields(body);
+        if (task != null && id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    /**
+     * Parses the fields of a storage line without its ID and checksum.
+     *
+     * @param body the fields of the line
+     * @return the task, or {@code null} if the fields are corrupted
+     */
+    private static Task parseFields(String body) {
+        Task scanned = TaskLineScanner.scan(body);
+        if (scanned != null) {
+            return scanned;
+        }
+
+        String[] data = body.split(" \\| ");
+        if (data.length < 3) {
+            return null;
+        }
         String type = data[0].trim();
         boolean isDone = "1".equals(data[1].trim());
-        String description = data[2].trim();
+        String description = DescriptionPool.intern(data[2].trim());
 
+        Task task;
         switch (type) {
             case TYPE_TODO:
-                ToDo todo = new ToDo(description);
-                if (isDone) todo.markAsDone();
-                return todo;
+                task = new ToDo(description);
+                break;
             case TYPE_DEADLINE:
-                LocalDateTime by = LocalDateTime.parse(data[3].trim(), FORMATTER);
-                Deadline deadline = new Deadline(description, by);
-                if (isDone) deadline.markAsDone();
-                return deadline;
+                LocalDateTime by = parseDate(data, 3);
+                if (by == null) {
+                    return null;
+                }
+                task = new Deadline(description, by);
+                break;
             case TYPE_EVENT:
-                LocalDateTime start = LocalDateTime.parse(data[3].trim(), FORMATTER);
-                LocalDateTime end = LocalDateTime.parse(data[4].trim(), FORMATTER);
-                Event event = new Event(description, start, end);
-                if (isDone) event.markAsDone();
-                return event;
+                LocalDateTime start = parseDate(data, 3);
+                LocalDateTime end = parseDate(data, 4);
+                if (start == null || end == null) {
+                    return null;
+                }
+                task = new Event(description, start, end);
+                break;
             default:
-                throw new IOException("Unknown task type: " + type);
+                return null;
+        }
+        if (isDone) task.markAsDone();
+        return task;
+    }
+
+    /**
+     * Parses a date field of a split storage line.
+     *
+     * @param data  the fields of the line
+     * @param field the position of the date field
+     * @return the date, or {@code null} if the field is missing or malformed
+     */
+    private static LocalDateTime parseDate(String[] data, int field) {
+        if (field >= data.length) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(data[field].trim(), FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
         }
     }
 
@@ -108,61 +453,595 @@ public class Storage {
      * <p>
      * Each line in the file is parsed using {@link #parseLine(String)},
      * which converts a plain-text representation into a {@link Task} object.
-     * Corrupted lines or lines with unknown task types are skipped, with a warning printed
-     * to the console.
+     * Corrupted lines, lines failing their checksum and lines with unknown task types are skipped,
+     * with a warning printed to the console. Tasks saved without an ID are then given one by
+     * {@link TaskList#assignIds(List)}. In journal mode, the
+     * journal is then replayed on top of the loaded tasks.
+     * Files larger than the parallel load threshold are parsed by a {@link ChunkedLoader},
+     * and files in the binary format are read by {@link BinaryFormat}.
+     * In sharded mode, the tasks are read from the shards instead, once the data file has been
+     * split into them by the first load.
      * </p>
      *
      * @return an {@link ArrayList} of {@link Task} objects read from the file
      * @throws IOException if the file cannot be read or created
      */
     public ArrayList<Task> load() throws IOException {
+        if (shards == null) {
+            return loadFile();
+        }
+        if (shards.exists()) {
+            return shards.loadAll();
+        }
+        // Split the data file into shards once; every later load reads the shards instead.
+        ArrayList<Task> tasks = loadFile();
+        shards.saveAll(tasks);
+        return tasks;
+    }
+
+    /**
+     * Loads the tasks from the data file, replaying the journal in journal mode.
+     *
+     * @return the tasks read from the file
+     * @throws IOException if the file cannot be read or created
+     */
+    private ArrayList<Task> loadFile() throws IOException {
+        if (isJournaled) {
+            compactor.recover();
+        }
         checkFile();
-        ArrayList<Task> tasks = new ArrayList<>();
+        ArrayList<Task> tasks;
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                try {
+        if (BinaryFormat.isBinary(file)) {
+            tasks = BinaryFormat.read(file);
+        } else if (file.length() >= parallelLoadThreshold) {
+            tasks = new ChunkedLoader(file, ChunkedLoader.DEFAULT_CHUNK_SIZE).load();
+        } else {
+            tasks = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
                     Task task = parseLine(line);
+                    if (task == null) {
+                        System.out.println("Skipping corrupted line: " + line);
+                        continue;
+                    }
                     tasks.add(task);
-                } catch (Exception e) {
-                    System.out.println("Skipping corrupted line: " + line);
                 }
             }
         }
 
+        TaskList.assignIds(tasks);
+        if (isJournaled) {
+            replayJournals(new ArrayTaskStore(tasks));
+        }
         return tasks;
     }
 
     /**
-     * Saves a list of tasks to the storage file.
-     * Each task is serialized into a plain-text line according to its type.
+     * Loads the deadlines due and the events starting within a range of months, in list order.
+     * In sharded mode, only the shards of those months are read; otherwise every task is loaded
+     * and filtered.
+     *
+     * @param from the first month to include
+     * @param to   the last month to include
+     * @return the deadlines and events in the range
+     * @throws IOException if the tasks cannot be read
+     */
+    public List<Task> loadMonths(YearMonth from, YearMonth to) throws IOException {
+        if (shards != null && shards.exists()) {
+            return shards.loadMonths(from, to);
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        for (Task task : load()) {
+            if (task instanceof ToDo) {
+                continue;
+            }
+            YearMonth month = YearMonth.from(task instanceof Deadline
+                    ? ((Deadline) task).getDueDate()
+                    : ((Event) task).getStart());
+            if (!month.isBefore(from) && !month.isAfter(to)) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Opens the storage file without parsing it, returning a store that reads tasks
+     * from the file as they are needed.
+     * <p>
+     * The journal, if any, is replayed on top of the store. Files in the binary format
+     * and sharded storage are loaded eagerly with {@link #load()}.
+     * </p>
+     *
+     * @param cachePages the maximum number of pages of parsed tasks kept in memory
+     * @return a store over the storage file
+     * @throws IOException if the file cannot be read or created
+     */
+    public TaskStore loadLazily(int cachePages) throws IOException {
+        if (isJournaled) {
+            compactor.recover();
+        }
+        checkFile();
+        if (shards != null || BinaryFormat.isBinary(file)) {
+            return new ArrayTaskStore(load());
+        }
+
+        PagedTaskStore tasks = PagedTaskStore.open(file, cachePages);
+        if (isJournaled) {
+            replayJournals(tasks);
+        }
+        return tasks;
+    }
+
+    /**
+     * Replays the rotated journal generations and then the live journal on top of the given tasks.
+     *
+     * @param tasks the tasks loaded from the data file
+     * @throws IOException if a journal cannot be read
+     */
+    private void replayJournals(TaskStore tasks) throws IOException {
+        journalRecords = 0;
+        for (File generation : compactor.generations()) {
+            replayJournal(generation, tasks);
+        }
+        replayJournal(journalFile, tasks);
+        maybeCompact(new TaskList(tasks));
+    }
+
+    /**
+     * Applies the records of a journal file, in order, to the given tasks, reading the file
+     * in a single pass.
+     * <p>
+     * Replay stops at the first record that fails its checksum or cannot be applied, since every
+     * later record refers to positions that depend on it. If that happens in the live journal,
+     * which is where a crash can leave a partly written record, the journal is truncated back to
+     * the end of the last applied record so that new records are not appended after the damage.
+     * </p>
+     *
+     * @param journal the journal file to replay
+     * @param tasks   the tasks loaded from the data file
+     * @throws IOException if the journal cannot be read or truncated
+     */
+    private void replayJournal(File journal, TaskStore tasks) throws IOException {
+        if (!journal.exists()) {
+            return;
+        }
+
+        byte[] bytes = Files.readAllBytes(journal.toPath());
+        int recordStart = 0;
+        while (recordStart < bytes.length) {
+            int recordEnd = recordStart;
+            while (recordEnd < bytes.length && bytes[recordEnd] != '\n') {
+                recordEnd++;
+            }
+            int contentEnd = recordEnd > recordStart && bytes[recordEnd - 1] == '\r' ? recordEnd - 1 : recordEnd;
+            String record = new String(bytes, recordStart, contentEnd - recordStart, Charset.defaultCharset());
+
+            if (!record.isEmpty()) {
+                if (!applyRecord(record, tasks)) {
+                    System.out.println("Discarding damaged journal from record: " + record);
+                    if (journal.equals(journalFile)) {
+                        try (FileChannel channel = FileChannel.open(journal.toPath(), StandardOpenOption.WRITE)) {
+                            channel.truncate(recordStart);
+                        }
+                    }
+                    return;
+                }
+                journalRecords++;
+            }
+            recordStart = recordEnd + 1;
+        }
+    }
+
+    /**
+     * Applies a single journal record to the given tasks.
+     * <p>
+     * The expected format for each record is:
+     * <ul>
+     *     <li>Add: {@code + | index | <task line>}</li>
+     *     <li>Delete: {@code - | index}</li>
+     *     <li>Mark / unmark: {@code M | index} / {@code U | index}</li>
+     * </ul>
+     * followed by the checksum field of a {@link RecordChecksum}.
+     * </p>
+     *
+     * @param record the journal record
+     * @param tasks  the tasks to apply the record to
+     * @return {@code false} if the record is not sealed, fails its checksum, is corrupted or
+     *         refers to a missing task
+     */
+    private boolean applyRecord(String record, TaskStore tasks) {
+        String body = RecordChecksum.unseal(record);
+        if (body == null) {
+            return false;
+        }
+        String[] data = body.split(" \\| ", 3);
+        if (data.length < 2) {
+            return false;
+        }
+        String op = data[0].trim();
+        int index = parseIndex(data[1].trim());
+        int limit = OP_ADD.equals(op) ? tasks.size() : tasks.size() - 1;
+        if (index < 0 || index > limit) {
+            return false;
+        }
+
+        switch (op) {
+            case OP_ADD:
+                Task added = data.length == 3 ? parseTask(data[2]) : null;
+                if (added == null) {
+                    return false;
+                }
+                tasks.add(index, added);
+                return true;
+            case OP_DELETE:
+                tasks.remove(index);
+                return true;
+            case OP_MARK:
+            case OP_UNMARK:
+                Task task = tasks.get(index);
+                if (OP_MARK.equals(op)) {
+                    task.markAsDone();
+                } else {
+                    task.markAsNotDone();
+                }
+                tasks.set(index, task);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Parses the index field of a journal record.
+     *
+     * @param text the index field
+     * @return the index, or {@code -1} if the field is not a small non-negative number
+     */
+    private static int parseIndex(String text) {
+        return (int) parseNumber(text, 9);
+    }
+
+    /**
+     * Parses a non-negative decimal number.
+     *
+     * @param text      the digits
+     * @param maxDigits the largest number of digits accepted
+     * @return the number, or {@code -1} if the text is not a number of at most {@code maxDigits} digits
+     */
+    private static long parseNumber(String text, int maxDigits) {
+        if (text.isEmpty() || text.length() > maxDigits) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Saves a list of tasks to the storage file in the configured format.
+     * In the text format, each task is serialized into a plain-text line according to its type.
+     * In journal mode, the saved file becomes the new snapshot and the journal is cleared.
+     * In sharded mode, every shard is rewritten instead.
+     * Otherwise, the tasks are written to a temporary file that replaces the data file once it
+     * is on disk.
      *
      * @param tasks the list of tasks to save
      * @throws IOException if the file cannot be written
      */
-    public void save(ArrayList<Task> tasks) throws IOException {
+    public void save(List<Task> tasks) throws IOException {
+        if (shards != null) {
+            shards.saveAll(tasks);
+            return;
+        }
         checkFile();
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (Task task : tasks) {
-                String line;
-                if (task instanceof ToDo) {
-                    line = "T | " + (task.isDone() ? "1" : "0") + " | " + task.getDescription();
-                } else if (task instanceof Deadline) {
-                    Deadline d = (Deadline) task;
-                    line = "D | " + (task.isDone() ? "1" : "0") + " | " + d.getDescription()
-                            + " | " + d.getDueDate().format(FORMATTER);
-                } else if (task instanceof Event) {
-                    Event e = (Event) task;
-                    line = "E | " + (task.isDone() ? "1" : "0") + " | " + e.getDescription()
-                            + " | " + e.getStart().format(FORMATTER)
-                            + " | " + e.getEnd().format(FORMATTER);
+        if (isJournaled) {
+            journalWriter.flush();
+            compactor.compactNow(tasks);
+            journalRecords = 0;
+            return;
+        }
+
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        OffsetIndex index = writeTasks(temp, tasks);
+        Files.move(temp.toPath(), file.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (index != null) {
+            try {
+                index.write(file);
+            } catch (IOException e) {
+                System.out.println("Failed to save index: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the given tasks to a file in the configured format and forces them to disk before returning.
+     * Used to write saves and {@link JournalCompactor} snapshots.
+     *
+     * @param target the file to write
+     * @param tasks  the tasks to write
+     * @return the index of the written records, or {@code null} for the binary format
+     * @throws IOException if the file cannot be written
+     */
+    OffsetIndex writeTasks(File target, List<Task> tasks) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(target)) {
+            OffsetIndex index = writeTo(out, tasks);
+            out.getFD().sync();
+            return index;
+        }
+    }
+
+    /**
+     * Writes the given tasks to a stream in the configured format.
+     * For the text format, each line is sealed with its checksum, and the offset, ID and status
+     * of each written line is recorded along the way.
+     *
+     * @param out   the stream to write to
+     * @param tasks the tasks to write
+     * @return the index of the written records, or {@code null} for the binary format
+     * @throws IOException if the stream cannot be written
+     */
+    private OffsetIndex writeTo(OutputStream out, List<Task> tasks) throws IOException {
+        if (format == StorageFormat.BINARY) {
+            BinaryFormat.write(out, tasks);
+            return null;
+        }
+
+        BufferedOutputStream buffered = new BufferedOutputStream(out);
+        long[] offsets = new long[Math.max(16, tasks.size())];
+        long[] ids = new long[offsets.length];
+        BitSet done = new BitSet();
+        int count = 0;
+        long position = 0;
+        for (Task task : tasks) {
+            String line = formatTask(task);
+            if (line == null) {
+                continue;
+            }
+            byte[] bytes = (RecordChecksum.seal(line) + System.lineSeparator()).getBytes(Charset.defaultCharset());
+            if (task.isDone()) {
+                done.set(count);
+            }
+            ids[count] = task.getId();
+            offsets[count++] = position;
+            buffered.write(bytes);
+            position += bytes.length;
+        }
+        buffered.flush();
+        TaskList.assignIds(ids, count);
+        return new OffsetIndex(offsets, ids, count, done);
+    }
+
+    /**
+     * Persists the insertion of a task at the given index.
+     *
+     * @param tasks the task list after the insertion
+     * @param index the index the task was inserted at
+     * @param task  the inserted task
+     * @throws IOException if the change cannot be written
+     */
+    public void recordAdd(TaskList tasks, int index, Task task) throws IOException {
+        if (deferSave()) {
+            return;
+        }
+        if (shards != null) {
+            shards.add(tasks, index, task);
+            return;
+        }
+        if (!isJournaled) {
+            save(tasks.getTasks());
+            return;
+        }
+        String line = formatTask(task);
+        if (line != null) {
+            appendRecord(OP_ADD + " | " + index + " | " + line);
+            maybeCompact(tasks);
+        }
+    }
+
+    /**
+     * Persists the removal of the task at the given index.
+     *
+     * @param tasks the task list after the removal
+     * @param index the index the task was removed from
+     * @param task  the removed task
+     * @throws IOException if the change cannot be written
+     */
+    public void recordDelete(TaskList tasks, int index, Task task) throws IOException {
+        if (deferSave()) {
+            return;
+        }
+        if (shards != null) {
+            shards.remove(task);
+            return;
+        }
+        if (!isJournaled) {
+            save(tasks.getTasks());
+            return;
+        }
+        appendRecord(OP_DELETE + " | " + index);
+        maybeCompact(tasks);
+    }
+
+    /**
+     * Persists a change in the completion status of the task at the given index.
+     *
+     * @param tasks  the task list after the change
+     * @param index  the index of the changed task
+     * @param isDone the new completion status of the task
+     * @throws IOException if the change cannot be written
+     */
+    public void recordMark(TaskList tasks, int index, boolean isDone) throws IOException {
+        if (deferSave()) {
+            return;
+        }
+        if (shards != null) {
+            shards.update(tasks.getTasks().get(index));
+            return;
+        }
+        if (!isJournaled) {
+            save(tasks.getTasks());
+            return;
+        }
+        appendRecord((isDone ? OP_MARK : OP_UNMARK) + " | " + index);
+        maybeCompact(tasks);
+    }
+
+    /**
+     * Persists the changes made by taking a {@link task.VersionedTaskList} back or forward to
+     * another version, as a single batch. A task that was put back with another status under the
+     * same ID is recorded as marked or unmarked rather than removed and added again.
+     *
+     * @param tasks   the task list after the changes
+     * @param changes the changes returned by restoring the version
+     * @throws IOException if the changes cannot be written
+     */
+    public void recordChanges(TaskList tasks, PersistentTaskStore.Changes changes) throws IOException {
+        Map<Long, Integer> addedById = new HashMap<>();
+        for (int i = 0; i < changes.addedCount(); i++) {
+            addedById.put(changes.added(i).getId(), i);
+        }
+        boolean[] isReplacement = new boolean[changes.addedCount()];
+        beginBatch();
+        try {
+            for (int i = changes.removedCount() - 1; i >= 0; i--) {
+                Integer replacement = addedById.get(changes.removed(i).getId());
+                if (replacement != null) {
+                    isReplacement[replacement] = true;
                 } else {
-                    continue;
+                    recordDelete(tasks, changes.removedAt(i), changes.removed(i));
+                }
+            }
+            for (int i = 0; i < changes.addedCount(); i++) {
+                if (!isReplacement[i]) {
+                    recordAdd(tasks, changes.addedAt(i), changes.added(i));
+                }
+            }
+            for (int i = 0; i < changes.addedCount(); i++) {
+                if (isReplacement[i]) {
+                    recordMark(tasks, changes.addedAt(i), changes.added(i).isDone());
                 }
-                writer.write(line);
-                writer.newLine();
             }
+        } finally {
+            endBatch(tasks);
+        }
+    }
+
+    /**
+     * Starts a batch of changes made by one command, which are persisted together by
+     * {@link #endBatch(TaskList)}. In journal mode, the records of the batch are appended in a
+     * single write; otherwise the tasks are saved once, however many changes the batch holds.
+     */
+    public void beginBatch() {
+        assert batch == null : "Batches cannot be nested";
+
+        batch = new ArrayList<>();
+        isBatchChanged = false;
+    }
+
+    /**
+     * Persists the changes recorded since {@link #beginBatch()}.
+     *
+     * @param tasks the task list after every change of the batch
+     * @throws IOException if the changes cannot be written
+     */
+    public void endBatch(TaskList tasks) throws IOException {
+        assert batch != null : "No batch was begun";
+
+        List<String> records = batch;
+        batch = null;
+        if (isBatchChanged) {
+            save(tasks.getTasks());
+        } else if (!records.isEmpty()) {
+            checkFile();
+            journalWriter.appendAll(records);
+            journalRecords += records.size();
+            maybeCompact(tasks);
+        }
+    }
+
+    /**
+     * Returns whether a change that would rewrite the tasks is part of a batch, and is only saved
+     * once the batch ends.
+     *
+     * @return {@code true} if the change is left to {@link #endBatch(TaskList)}
+     */
+    private boolean deferSave() {
+        if (batch == null || isJournaled) {
+            return false;
+        }
+        isBatchChanged = true;
+        return true;
+    }
+
+    /**
+     * Starts a background compaction if the journal has grown past the configured threshold.
+     *
+     * @param tasks the tasks as they are after the last journal record
+     * @throws IOException if the journal cannot be rotated
+     */
+    private void maybeCompact(TaskList tasks) throws IOException {
+        if (batch != null
+                || journalRecords < compactionMinRecords
+                || journalRecords < compactionRatio * tasks.size()
+                || compactor.isCompacting()) {
+            return;
+        }
+        journalWriter.flush();
+        compactor.compactAsync(tasks.snapshot());
+        journalRecords = 0;
+    }
+
+    /**
+     * Seals a single record with its checksum and appends it to the journal file,
+     * or queues it for the background writer. Records of a batch are kept until it ends.
+     *
+     * @param record the record to append
+     * @throws IOException if the journal cannot be written
+     */
+    private void appendRecord(String record) throws IOException {
+        if (batch != null) {
+            batch.add(RecordChecksum.seal(record));
+            return;
+        }
+        checkFile();
+        journalWriter.append(RecordChecksum.seal(record));
+        journalRecords++;
+    }
+
+    /**
+     * Serializes a task into a single plain-text line, ending with its ID if it has one.
+     * Also used to write tasks held in records of other files.
+     *
+     * @param task the task to serialize
+     * @return the line representing the task, or {@code null} if the task type is unknown
+     */
+    public static String formatTask(Task task) {
+        String line;
+        if (task instanceof ToDo) {
+            line = "T | " + (task.isDone() ? "1" : "0") + " | " + task.getDescription();
+        } else if (task instanceof Deadline) {
+            Deadline d = (Deadline) task;
+            line = "D | " + (task.isDone() ? "1" : "0") + " | " + d.getDescription()
+                    + " | " + d.getDueDate().format(FORMATTER);
+        } else if (task instanceof Event) {
+            Event e = (Event) task;
+            line = "E | " + (task.isDone() ? "1" : "0") + " | " + e.getDescription()
+                    + " | " + e.getStart().format(FORMATTER)
+                    + " | " + e.getEnd().format(FORMATTER);
+        } else {
+            return null;
         }
+        return task.getId() > 0 ? line + ID_FIELD + task.getId() : line;
     }
 }
\ No newline at end of file
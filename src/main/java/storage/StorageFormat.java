@@ -0,0 +1,13 @@
+package storage;
+
+/**
+ * The on-disk formats a {@link Storage} can write its data file in.
+ * Either format is recognised automatically when loading.
+ */
+public enum StorageFormat {
+    /** One human-readable {@code " | "}-separated line per task. */
+    TEXT,
+
+    /** The compact binary format written by {@link BinaryFormat}. */
+    BINARY
+}
@@ -0,0 +1,150 @@
+package storage;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+import task.Deadline;
+import task.DescriptionPool;
+import task.Event;
+import task.Task;
+import task.ToDo;
+
+/**
+ * Parses well-formed lines of the text storage format in a single pass.
+ * <p>
+ * Unlike splitting on a regular expression, the scanner walks the line once, only allocates
+ * the description and the resulting task, and decodes the fixed-width {@code yyyy-MM-dd HHmm}
+ * timestamps digit by digit. Lines it does not recognise are left to the slower,
+ * more lenient parser in {@link Storage}.
+ * </p>
+ */
+public class TaskLineScanner {
+    /** Field separator of the text storage format. */
+    private static final String SEPARATOR = " | ";
+
+    /** Length of a {@code yyyy-MM-dd HHmm} timestamp. */
+    private static final int DATE_LENGTH = 15;
+
+    /**
+     * Parses a line of the text storage format.
+     *
+     * @param line the line to parse
+     * @return the task, or {@code null} if the line is not in the exact expected form
+     */
+    public static Task scan(String line) {
+        int length = line.length();
+        if (length < 9 || !line.startsWith(SEPARATOR, 1) || !line.startsWith(SEPARATOR, 5)) {
+            return null;
+        }
+
+        char type = line.charAt(0);
+        char done = line.charAt(4);
+        if (done != '0' && done != '1') {
+            return null;
+        }
+
+        int descriptionStart = 8;
+        int descriptionEnd = line.indexOf(SEPARATOR, descriptionStart);
+        int next = descriptionEnd + SEPARATOR.length();
+        if (descriptionEnd < 0) {
+            descriptionEnd = length;
+            next = length;
+        }
+        String description = DescriptionPool.intern(trimmedSubstring(line, descriptionStart, descriptionEnd));
+        if (description.isEmpty()) {
+            return null;
+        }
+
+        Task task;
+        switch (type) {
+            case 'T':
+                task = new ToDo(description);
+                break;
+            case 'D':
+                LocalDateTime by = scanDate(line, next);
+                if (by == null) {
+                    return null;
+                }
+                task = new Deadline(description, by);
+                break;
+            case 'E':
+                LocalDateTime start = scanDate(line, next);
+                LocalDateTime end = scanDate(line, next + DATE_LENGTH + SEPARATOR.length());
+                if (start == null || end == null) {
+                    return null;
+                }
+                task = new Event(description, start, end);
+                break;
+            default:
+                return null;
+        }
+
+        if (done == '1') {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    /**
+     * Decodes a {@code yyyy-MM-dd HHmm} timestamp that must be followed by the end of the line
+     * or a separator.
+     *
+     * @param line  the line containing the timestamp
+     * @param start the index the timestamp starts at
+     * @return the timestamp, or {@code null} if it is malformed or not a valid date
+     */
+    private static LocalDateTime scanDate(String line, int start) {
+        int end = start + DATE_LENGTH;
+        if (start <= 0 || end > line.length()
+                || (end < line.length() && !line.startsWith(SEPARATOR, end))
+                || line.charAt(start + 4) != '-' || line.charAt(start + 7) != '-'
+                || line.charAt(start + 10) != ' ') {
+            return null;
+        }
+
+        int year = digits(line, start, 4);
+        int month = digits(line, start + 5, 2);
+        int day = digits(line, start + 8, 2);
+        int hour = digits(line, start + 11, 2);
+        int minute = digits(line, start + 13, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0) {
+            return null;
+        }
+
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decodes a run of decimal digits.
+     *
+     * @param line  the line containing the digits
+     * @param start the index of the first digit
+     * @param count the number of digits
+     * @return the decoded value, or {@code -1} if a character is not a digit
+     */
+    private static int digits(String line, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String trimmedSubstring(String line, int start, int end) {
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return line.substring(start, end);
+    }
+}
@@ -0,0 +1,86 @@
+package task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stores tasks in an {@link ArrayList}, keeping every task in memory.
+ * This is the default store of a {@link TaskList}.
+ */
+public class ArrayTaskStore implements TaskStore {
+    private final ArrayList<Task> tasks;
+
+    /**
+     * Constructs a store backed by the given list. Changes to the store write through to the list.
+     *
+     * @param tasks the list holding the tasks
+     */
+    public ArrayTaskStore(ArrayList<Task> tasks) {
+        assert tasks != null : "Task list cannot be null";
+
+        this.tasks = tasks;
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public Task get(int index) {
+        return tasks.get(index);
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        tasks.add(index, task);
+    }
+
+    @Override
+    public Task remove(int index) {
+        return tasks.remove(index);
+    }
+
+    /**
+     * Removes the tasks at the given positions in a single pass, moving each task after the
+     * first of them forward once.
+     *
+     * @param indices the positions of the tasks to remove, in ascending order without repeats
+     * @return the removed tasks, in the order of their positions
+     */
+    @Override
+    public List<Task> removeAll(int[] indices) {
+        List<Task> removed = new ArrayList<>(indices.length);
+        if (indices.length == 0) {
+            return removed;
+        }
+        int to = indices[0];
+        int next = 0;
+        for (int from = indices[0]; from < tasks.size(); from++) {
+            if (next < indices.length && indices[next] == from) {
+                removed.add(tasks.get(from));
+                next++;
+            } else {
+                tasks.set(to++, tasks.get(from));
+            }
+        }
+        tasks.subList(to, tasks.size()).clear();
+        return removed;
+    }
+
+    @Override
+    public void set(int index, Task task) {
+        tasks.set(index, task);
+    }
+
+    @Override
+    public List<Task> asList() {
+        return tasks;
+    }
+
+    @Override
+    public List<Task> snapshot() {
+        return Collections.unmodifiableList(new ArrayList<>(tasks));
+    }
+}
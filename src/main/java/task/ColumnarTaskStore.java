@@ -0,0 +1,478 @@
+package task;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Stores tasks column by column in primitive arrays, without keeping a {@link Task} object
+ * for each of them.
+ * <p>
+ * Every task occupies one row of the columns: its type code, a done bit, its ID, its dates as
+ * minutes since the epoch, and the address of its description in a shared
+ * {@link DescriptionArena}, which can keep the descriptions outside the Java heap.
+ * Positions map to rows through a separate array, so inserting or removing a task shifts
+ * four bytes per later task and leaves the columns in place. Rows and arena space freed by
+ * removals are reused, and the arena is compacted once more than half of it is unused.
+ * </p>
+ * <p>
+ * {@link #get(int)} builds a task from its row. As long as that task is still referenced
+ * elsewhere, for example by an index of the {@code TaskList}, reading it again returns the same
+ * object. Dates are kept to the minute, the precision of every format tasks are entered or
+ * saved in.
+ * </p>
+ */
+public class ColumnarTaskStore implements TaskStore {
+    /** Number of rows the columns are created with. */
+    private static final int INITIAL_ROWS = 16;
+
+    /** Row of the task at each position. */
+    private int[] rows;
+
+    /** Number of tasks in the store. */
+    private int size;
+
+    /** Type code of the task in each row. */
+    private byte[] types;
+
+    /** Done bit of the task in each row, packed into words. */
+    private long[] doneBits;
+
+    /** ID of the task in each row, or {@code 0} if it has none. */
+    private long[] ids;
+
+    /** Due date of a deadline or start of an event in each row, in minutes since the epoch. */
+    private long[] starts;
+
+    /** End of an event in each row, in minutes since the epoch. */
+    private long[] ends;
+
+    /** Address of the description of each row in the arena. */
+    private int[] offsets;
+
+    /** Descriptions of every row. */
+    private DescriptionArena arena;
+
+    /** Rows freed by removals, to be reused before new rows are allocated. */
+    private int[] freeRows = new int[INITIAL_ROWS];
+
+    /** Number of rows in {@link #freeRows}. */
+    private int freeCount;
+
+    /** Number of rows ever allocated. */
+    private int rowCount;
+
+    /** Tasks built from rows that may still be referenced, keyed by row. */
+    private final HashMap<Integer, RowTask> views = new HashMap<>();
+
+    /** Built tasks that are no longer referenced anywhere. */
+    private final ReferenceQueue<Task> collected = new ReferenceQueue<>();
+
+    /**
+     * Constructs an empty store.
+     */
+    public ColumnarTaskStore() {
+        this(INITIAL_ROWS, false);
+    }
+
+    /**
+     * Constructs a store holding the given tasks, in order, with their descriptions on the heap.
+     * The tasks themselves are not kept, and the columns are sized to fit them exactly.
+     *
+     * @param tasks the tasks to store
+     */
+    public ColumnarTaskStore(List<Task> tasks) {
+        this(tasks, false);
+    }
+
+    /**
+     * Constructs a store holding the given tasks, in order. The tasks themselves are not kept,
+     * and the columns are sized to fit them exactly.
+     *
+     * @param tasks     the tasks to store
+     * @param isOffHeap whether to keep the descriptions outside the Java heap
+     */
+    public ColumnarTaskStore(List<Task> tasks, boolean isOffHeap) {
+        this(Math.max(INITIAL_ROWS, tasks.size()), isOffHeap);
+        assert tasks != null : "Task list cannot be null";
+
+        for (Task task : tasks) {
+            insertRow(size, task);
+        }
+        arena.trim();
+    }
+
+    private ColumnarTaskStore(int capacity, boolean isOffHeap) {
+        this.rows = new int[capacity];
+        this.types = new byte[capacity];
+        this.doneBits = new long[(capacity + 63) >>> 6];
+        this.ids = new long[capacity];
+        this.starts = new long[capacity];
+        this.ends = new long[capacity];
+        this.offsets = new int[capacity];
+        this.arena = new DescriptionArena(isOffHeap);
+    }
+
+    /**
+     * Constructs a copy of a store whose columns no longer change with the original.
+     * The arena is shared through a view, since descriptions are never overwritten.
+     *
+     * @param other the store to copy
+     */
+    private ColumnarTaskStore(ColumnarTaskStore other) {
+        this.rows = Arrays.copyOf(other.rows, other.size);
+        this.size = other.size;
+        this.types = other.types.clone();
+        this.doneBits = other.doneBits.clone();
+        this.ids = other.ids.clone();
+        this.starts = other.starts.clone();
+        this.ends = other.ends.clone();
+        this.offsets = other.offsets.clone();
+        this.arena = other.arena.view();
+        this.rowCount = other.rowCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+        expungeCollected();
+        int row = rows[index];
+        RowTask reference = views.get(row);
+        Task task = reference == null ? null : reference.get();
+        if (task == null) {
+            task = readRow(row);
+            views.put(row, new RowTask(task, row, collected));
+        }
+        return task;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int row = insertRow(index, task);
+        views.put(row, new RowTask(task, row, collected));
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task task = get(index);
+        int row = rows[index];
+        System.arraycopy(rows, index + 1, rows, index, size - index - 1);
+        size--;
+        releaseRow(row);
+        return task;
+    }
+
+    /**
+     * Removes the tasks at the given positions in a single pass over the row numbers after the
+     * first of them.
+     *
+     * @param indices the positions of the tasks to remove, in ascending order without repeats
+     * @return the removed tasks, in the order of their positions
+     */
+    @Override
+    public List<Task> removeAll(int[] indices) {
+        List<Task> removed = new ArrayList<>(indices.length);
+        if (indices.length == 0) {
+            return removed;
+        }
+        for (int index : indices) {
+            removed.add(get(index));
+        }
+        int to = indices[0];
+        int next = 0;
+        for (int from = indices[0]; from < size; from++) {
+            if (next < indices.length && indices[next] == from) {
+                releaseRow(rows[from]);
+                next++;
+            } else {
+                rows[to++] = rows[from];
+            }
+        }
+        size = to;
+        return removed;
+    }
+
+    /**
+     * Frees the row of a removed task for reuse, along with its description.
+     *
+     * @param row the row of the removed task
+     */
+    private void releaseRow(int row) {
+        views.remove(row);
+        arena.release(offsets[row]);
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    /**
+     * Stores the given task at a position. If it is the task last read from that position,
+     * which is the case after marking it, its description is known to be unchanged and is kept.
+     *
+     * @param index the position to store the task at
+     * @param task  the task to store
+     */
+    @Override
+    public void set(int index, Task task) {
+        checkIndex(index);
+        int row = rows[index];
+        writeRow(row, task);
+        RowTask reference = views.get(row);
+        if (reference != null && reference.get() == task) {
+            return;
+        }
+        if (arena.needsCompaction()) {
+            compactArena();
+        }
+        int replaced = offsets[row];
+        offsets[row] = arena.add(task.getDescription());
+        arena.release(replaced);
+        views.put(row, new RowTask(task, row, collected));
+    }
+
+    /**
+     * Returns whether the task at the given position is done, reading only its done bit.
+     *
+     * @param index the position of the task
+     * @return {@code true} if the task is done
+     */
+    @Override
+    public boolean isDone(int index) {
+        checkIndex(index);
+        int row = rows[index];
+        return (doneBits[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Returns the ID of the task at the given position, reading only its ID column.
+     *
+     * @param index the position of the task
+     * @return the ID of the task
+     */
+    @Override
+    public long idOf(int index) {
+        checkIndex(index);
+        return ids[rows[index]];
+    }
+
+    /**
+     * Returns the type code of the task at the given position, reading only its type column.
+     *
+     * @param index the position of the task
+     * @return the type code of the task
+     */
+    @Override
+    public char typeOf(int index) {
+        checkIndex(index);
+        return (char) types[rows[index]];
+    }
+
+    /**
+     * Returns the positions of the tasks whose descriptions contain the query, comparing the
+     * stored bytes without building the tasks.
+     *
+     * @param query the text to look for
+     * @return the positions of the matching tasks in order
+     */
+    @Override
+    public List<Integer> findContaining(String query) {
+        IntPredicate matches = arena.containing(query);
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (matches.test(offsets[rows[i]])) {
+                indices.add(i);
+            }
+        }
+        return indices;
+    }
+
+    @Override
+    public List<Task> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return ColumnarTaskStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns the tasks as they are now. The columns are copied, and tasks are built from
+     * the copy as they are read from the snapshot.
+     *
+     * @return a read-only view of the current tasks
+     */
+    @Override
+    public List<Task> snapshot() {
+        return Collections.unmodifiableList(new ColumnarTaskStore(this).asList());
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Stores a task in a free row and inserts the row at a position.
+     *
+     * @param index the position to insert at
+     * @param task  the task to store
+     * @return the row holding the task
+     */
+    private int insertRow(int index, Task task) {
+        if (arena.needsCompaction()) {
+            compactArena();
+        }
+        int row = allocateRow();
+        writeRow(row, task);
+        offsets[row] = arena.add(task.getDescription());
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+        }
+        System.arraycopy(rows, index, rows, index + 1, size - index);
+        rows[index] = row;
+        size++;
+        return row;
+    }
+
+    /**
+     * Builds the task held in a row.
+     *
+     * @param row the row of the task
+     * @return a new task with the row's contents
+     */
+    private Task readRow(int row) {
+        String description = arena.get(offsets[row]);
+        Task task;
+        switch (types[row]) {
+            case 'D':
+                task = new Deadline(description, toDateTime(starts[row]));
+                break;
+            case 'E':
+                task = new Event(description, toDateTime(starts[row]), toDateTime(ends[row]));
+                break;
+            default:
+                task = new ToDo(description);
+                break;
+        }
+        if ((doneBits[row >>> 6] & (1L << row)) != 0) {
+            task.markAsDone();
+        }
+        if (ids[row] != 0) {
+            task.setId(ids[row]);
+        }
+        return task;
+    }
+
+    /**
+     * Stores everything about a task in a row except its description.
+     *
+     * @param row  the row to fill
+     * @param task the task to store
+     */
+    private void writeRow(int row, Task task) {
+        char type = TaskStore.typeOf(task);
+        types[row] = (byte) type;
+        if (task.isDone()) {
+            doneBits[row >>> 6] |= 1L << row;
+        } else {
+            doneBits[row >>> 6] &= ~(1L << row);
+        }
+        ids[row] = task.getId();
+        if (type == 'D') {
+            starts[row] = toMinutes(((Deadline) task).getDueDate());
+        } else if (type == 'E') {
+            starts[row] = toMinutes(((Event) task).getStart());
+            ends[row] = toMinutes(((Event) task).getEnd());
+        }
+    }
+
+    /**
+     * Returns a free row, growing the columns if every row is in use.
+     *
+     * @return the row
+     */
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowCount == types.length) {
+            int capacity = rowCount * 2;
+            types = Arrays.copyOf(types, capacity);
+            doneBits = Arrays.copyOf(doneBits, (capacity + 63) >>> 6);
+            ids = Arrays.copyOf(ids, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+        return rowCount++;
+    }
+
+    /**
+     * Copies the descriptions still in use into a new arena, dropping those of removed and
+     * replaced tasks. Snapshots keep reading the old arena.
+     */
+    private void compactArena() {
+        DescriptionArena compacted = new DescriptionArena(arena.isOffHeap());
+        for (int i = 0; i < size; i++) {
+            int row = rows[i];
+            offsets[row] = compacted.addFrom(arena, offsets[row]);
+        }
+        arena = compacted;
+    }
+
+    /**
+     * Forgets built tasks that have been garbage collected.
+     */
+    private void expungeCollected() {
+        Reference<? extends Task> reference;
+        while ((reference = collected.poll()) != null) {
+            RowTask rowTask = (RowTask) reference;
+            views.remove(rowTask.row, rowTask);
+        }
+    }
+
+    private static long toMinutes(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime toDateTime(long minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * A weak reference to a task built from a row, remembering the row it came from.
+     */
+    private static class RowTask extends WeakReference<Task> {
+        private final int row;
+
+        RowTask(Task task, int row, ReferenceQueue<Task> queue) {
+            super(task, queue);
+            this.row = row;
+        }
+    }
+}
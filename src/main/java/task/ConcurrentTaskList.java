@@ -0,0 +1,234 @@
+package task;
+
+import error.JimmyTimmyException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A {@link TaskList} that can be read from other threads while one thread changes it.
+ * <p>
+ * The tasks are held in a {@link PersistentTaskStore}, so {@link #getTasks()} and {@link #snapshot()}
+ * hand out the current version of the list without copying it, and that version never changes
+ * under its reader. Reading a task by position or the size of the list is attempted without
+ * a lock, and only retried under a read lock if a change happened meanwhile. Every index is
+ * built when the list is created, so that queries only read; they share a read lock and run in
+ * parallel, while changes take the write lock of the same {@link StampedLock} and wait for
+ * them. Changes must be made by one thread at a time, such as the command thread.
+ * </p>
+ * <p>
+ * A task handed out is never changed afterwards: marking or unmarking a task puts a copy with
+ * the new status in its place, so a snapshot taken before keeps the old status.
+ * </p>
+ */
+public class ConcurrentTaskList extends TaskList {
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Constructs a list holding the given tasks, in order, giving an ID to each task that has
+     * none. The list is copied.
+     *
+     * @param tasks the tasks to hold
+     */
+    public ConcurrentTaskList(List<Task> tasks) {
+        super(new PersistentTaskStore(assignIds(tasks)), true);
+        buildIndexes();
+    }
+
+    /**
+     * Constructs an empty list.
+     */
+    public ConcurrentTaskList() {
+        this(new ArrayList<>());
+    }
+
+    @Override
+    public void addTask(Task task) {
+        write(() -> {
+            super.addTask(task);
+            return null;
+        });
+    }
+
+    @Override
+    public void addTaskAt(int index, Task task) {
+        write(() -> {
+            super.addTaskAt(index, task);
+            return null;
+        });
+    }
+
+    @Override
+    public Task deleteTask(int index) throws JimmyTimmyException {
+        return write(() -> super.deleteTask(index));
+    }
+
+    @Override
+    public List<Task> deleteTasks(int[] indices) throws JimmyTimmyException {
+        return write(() -> super.deleteTasks(indices));
+    }
+
+    @Override
+    public Task markTask(int index) throws JimmyTimmyException {
+        return write(() -> super.markTask(index));
+    }
+
+    @Override
+    public Task unmarkTask(int index) throws JimmyTimmyException {
+        return write(() -> super.unmarkTask(index));
+    }
+
+    @Override
+    public void reserveIds(long lastId) {
+        write(() -> {
+            super.reserveIds(lastId);
+            return null;
+        });
+    }
+
+    @Override
+    public Task getTask(int index) throws JimmyTimmyException {
+        return readOptimistically(() -> super.getTask(index));
+    }
+
+    @Override
+    public int size() {
+        return readOptimistically(super::size);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return readOptimistically(super::isEmpty);
+    }
+
+    /**
+     * Returns the tasks as they are now. The list is read-only and does not change
+     * with later changes to this list.
+     *
+     * @return a snapshot of the tasks
+     */
+    @Override
+    public List<Task> getTasks() {
+        return snapshot();
+    }
+
+    @Override
+    public long getTaskId(int index) throws JimmyTimmyException {
+        return read(() -> super.getTaskId(index));
+    }
+
+    @Override
+    public Task findById(long id) {
+        return read(() -> super.findById(id));
+    }
+
+    @Override
+    public int indexOfId(long id, int hint) {
+        return read(() -> super.indexOfId(id, hint));
+    }
+
+    @Override
+    public ArrayList<Task> findTasks(String keyword) {
+        return read(() -> super.findTasks(keyword));
+    }
+
+    @Override
+    public List<Deadline> findDueBefore(LocalDateTime time) {
+        return read(() -> super.findDueBefore(time));
+    }
+
+    @Override
+    public List<Deadline> findDueBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.findDueBetween(from, to));
+    }
+
+    @Override
+    public List<Deadline> findNextDue() {
+        return read(super::findNextDue);
+    }
+
+    @Override
+    public Task findPendingDuplicate(Task task) {
+        return read(() -> super.findPendingDuplicate(task));
+    }
+
+    @Override
+    public int countTasks(boolean isDone) {
+        return read(() -> super.countTasks(isDone));
+    }
+
+    @Override
+    public int countTasks(char type, boolean isDone) {
+        return read(() -> super.countTasks(type, isDone));
+    }
+
+    @Override
+    public List<Integer> findByStatus(boolean isDone) {
+        return read(() -> super.findByStatus(isDone));
+    }
+
+    @Override
+    public List<Event> findEventsActiveAt(LocalDateTime time) {
+        return read(() -> super.findEventsActiveAt(time));
+    }
+
+    @Override
+    public List<Event> findEventsOverlapping(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.findEventsOverlapping(from, to));
+    }
+
+    @Override
+    public String toString() {
+        return read(super::toString);
+    }
+
+    private <T, E extends Exception> T write(Action<T, E> action) throws E {
+        long stamp = lock.writeLock();
+        try {
+            return action.run();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private <T, E extends Exception> T read(Action<T, E> action) throws E {
+        long stamp = lock.readLock();
+        try {
+            return action.run();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs a read of the store without a lock, running it again under the read lock if the
+     * list changed meanwhile. Only reads that see a single version of the store are safe to run
+     * this way, since they never see a change half made.
+     */
+    private <T, E extends Exception> T readOptimistically(Action<T, E> action) throws E {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = action.run();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (Throwable e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        return read(action);
+    }
+
+    /**
+     * A read or change of the list.
+     */
+    @FunctionalInterface
+    private interface Action<T, E extends Exception> {
+        T run() throws E;
+    }
+}
@@ -0,0 +1,309 @@
+package task;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Holds task descriptions as UTF-8 bytes in a few large buffers, each addressed by an offset.
+ * <p>
+ * Every description is stored as a varint length followed by its bytes and never spans two
+ * buffers. The buffers live either on the heap or, for an off-heap arena, outside it, so that
+ * the garbage collector only ever sees the buffers themselves however many descriptions they
+ * hold. Bytes are never changed once written, so a {@link #view()} can be read while the arena
+ * keeps growing. Descriptions that are no longer used are only counted; the owner copies the
+ * ones still in use into a new arena once {@link #needsCompaction()} says so.
+ * </p>
+ */
+public class DescriptionArena {
+    /** Number of address bits holding the position within a buffer. */
+    private static final int SEGMENT_BITS = 26;
+
+    /** Largest size of one buffer. */
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    /** Largest number of buffers, so that every address is a positive {@code int}. */
+    private static final int MAX_SEGMENTS = 1 << (31 - SEGMENT_BITS);
+
+    /** Size of a new buffer, which doubles as it fills up to {@link #SEGMENT_SIZE}. */
+    private static final int INITIAL_CAPACITY = 512;
+
+    private final boolean isOffHeap;
+
+    private ByteBuffer[] segments = new ByteBuffer[1];
+    private int segmentCount;
+
+    /** Number of bytes written to the last buffer. */
+    private int lastUsed;
+
+    /** Number of bytes written to every buffer. */
+    private long usedBytes;
+
+    /** Number of written bytes of descriptions no longer used. */
+    private long freeBytes;
+
+    /**
+     * Constructs an empty arena.
+     *
+     * @param isOffHeap whether to keep the descriptions outside the Java heap
+     */
+    public DescriptionArena(boolean isOffHeap) {
+        this.isOffHeap = isOffHeap;
+    }
+
+    /**
+     * Returns whether the descriptions are kept outside the Java heap.
+     *
+     * @return {@code true} for an off-heap arena
+     */
+    public boolean isOffHeap() {
+        return isOffHeap;
+    }
+
+    /**
+     * Appends a description.
+     *
+     * @param description the description to store
+     * @return the address of the description
+     */
+    public int add(String description) {
+        byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+        int size = prefixSize(bytes.length) + bytes.length;
+        ByteBuffer segment = reserve(size);
+        int position = lastUsed;
+        int length = bytes.length;
+        while (length >= 0x80) {
+            segment.put(position++, (byte) (length | 0x80));
+            length >>>= 7;
+        }
+        segment.put(position++, (byte) length);
+        segment.put(position, bytes, 0, bytes.length);
+        return commit(size);
+    }
+
+    /**
+     * Copies a description from another arena, without decoding it.
+     *
+     * @param source  the arena holding the description
+     * @param address the address of the description in that arena
+     * @return the address of the copy in this arena
+     */
+    public int addFrom(DescriptionArena source, int address) {
+        int size = source.size(address);
+        reserve(size).put(lastUsed, source.segment(address), address & (SEGMENT_SIZE - 1), size);
+        return commit(size);
+    }
+
+    /**
+     * Returns a stored description.
+     *
+     * @param address the address of the description
+     * @return the description
+     */
+    public String get(int address) {
+        ByteBuffer segment = segment(address);
+        int start = bodyStart(segment, address);
+        byte[] bytes = new byte[(address & (SEGMENT_SIZE - 1)) + size(address) - start];
+        segment.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of bytes a description takes, including its length.
+     *
+     * @param address the address of the description
+     * @return the number of bytes
+     */
+    public int size(int address) {
+        ByteBuffer segment = segment(address);
+        int position = address & (SEGMENT_SIZE - 1);
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = segment.get(position++);
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return position - (address & (SEGMENT_SIZE - 1)) + length;
+    }
+
+    /**
+     * Records that a description is no longer used.
+     *
+     * @param address the address of the description
+     */
+    public void release(int address) {
+        freeBytes += size(address);
+    }
+
+    /**
+     * Returns whether more than half of the written bytes belong to descriptions no longer used.
+     *
+     * @return {@code true} if the arena should be compacted
+     */
+    public boolean needsCompaction() {
+        return freeBytes > usedBytes / 2;
+    }
+
+    /**
+     * Shrinks the last buffer to the bytes written to it, for an arena that is not expected to
+     * grow much further.
+     */
+    public void trim() {
+        if (segmentCount > 0 && lastUsed < segments[segmentCount - 1].capacity()) {
+            segments[segmentCount - 1] = copy(segments[segmentCount - 1], Math.max(lastUsed, 1));
+        }
+    }
+
+    /**
+     * Returns an arena sharing the buffers of this one, for reading the descriptions written so
+     * far while this arena keeps changing. Nothing may be added to the view.
+     *
+     * @return a read-only view of this arena
+     */
+    public DescriptionArena view() {
+        DescriptionArena view = new DescriptionArena(isOffHeap);
+        view.segments = Arrays.copyOf(segments, segmentCount);
+        view.segmentCount = segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            view.segments[i] = segments[i].asReadOnlyBuffer();
+        }
+        return view;
+    }
+
+    /**
+     * Returns a test for whether the description at an address contains the given query, both
+     * as {@link Task#normalize(String) normalized} for searches.
+     * <p>
+     * When both the query and a description are plain ASCII, the description is compared byte
+     * by byte where it is stored, ignoring case. Any other description is decoded and normalized
+     * before it is compared.
+     * </p>
+     *
+     * @param query the text to look for
+     * @return a test taking the address of a description
+     */
+    public IntPredicate containing(String query) {
+        String normalized = Task.normalize(query);
+        byte[] ascii = normalized.getBytes(StandardCharsets.US_ASCII);
+        boolean isAsciiQuery = normalized.chars().allMatch(c -> c < 0x80);
+        return address -> {
+            ByteBuffer segment = segment(address);
+            int start = bodyStart(segment, address);
+            int end = (address & (SEGMENT_SIZE - 1)) + size(address);
+            if (isAsciiQuery && isAscii(segment, start, end)) {
+                return containsIgnoringCase(segment, start, end, ascii);
+            }
+            return Task.normalize(get(address)).contains(normalized);
+        };
+    }
+
+    private static boolean isAscii(ByteBuffer segment, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (segment.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoringCase(ByteBuffer segment, int start, int end, byte[] query) {
+        for (int i = start; i <= end - query.length; i++) {
+            int j = 0;
+            while (j < query.length && toLowerCase(segment.get(i + j)) == query[j]) {
+                j++;
+            }
+            if (j == query.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private ByteBuffer segment(int address) {
+        return segments[address >>> SEGMENT_BITS];
+    }
+
+    /**
+     * Returns the position of the first byte of a description after its length.
+     */
+    private static int bodyStart(ByteBuffer segment, int address) {
+        int position = address & (SEGMENT_SIZE - 1);
+        while (segment.get(position++) < 0) {
+            // Skips the length.
+        }
+        return position;
+    }
+
+    private static int prefixSize(int length) {
+        int size = 1;
+        while (length >= 0x80) {
+            length >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the buffer to write the given number of bytes to at {@link #lastUsed}, growing the
+     * last buffer or starting a new one if needed.
+     *
+     * @param size the number of bytes to write
+     * @return the last buffer
+     * @throws IllegalStateException if a description is too long or the arena is full
+     */
+    private ByteBuffer reserve(int size) {
+        if (size > SEGMENT_SIZE) {
+            throw new IllegalStateException("Description is too long to store: " + size + " bytes");
+        }
+        if (segmentCount > 0) {
+            ByteBuffer last = segments[segmentCount - 1];
+            if (lastUsed + size <= last.capacity()) {
+                return last;
+            }
+            if (lastUsed + size <= SEGMENT_SIZE) {
+                int capacity = (int) Math.min(SEGMENT_SIZE, Math.max(last.capacity() * 2L, lastUsed + size));
+                segments[segmentCount - 1] = copy(last, capacity);
+                return segments[segmentCount - 1];
+            }
+        }
+        if (segmentCount == MAX_SEGMENTS) {
+            throw new IllegalStateException("Description arena is full");
+        }
+        if (segmentCount == segments.length) {
+            segments = Arrays.copyOf(segments, segmentCount * 2);
+        }
+        segments[segmentCount++] = allocate(Math.max(INITIAL_CAPACITY, size));
+        lastUsed = 0;
+        return segments[segmentCount - 1];
+    }
+
+    /**
+     * Marks bytes reserved and written at {@link #lastUsed} as used.
+     *
+     * @param size the number of bytes written
+     * @return the address of the written bytes
+     */
+    private int commit(int size) {
+        int address = ((segmentCount - 1) << SEGMENT_BITS) | lastUsed;
+        lastUsed += size;
+        usedBytes += size;
+        return address;
+    }
+
+    private ByteBuffer copy(ByteBuffer segment, int capacity) {
+        ByteBuffer copy = allocate(capacity);
+        copy.put(0, segment, 0, Math.min(lastUsed, capacity));
+        return copy;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return isOffHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
@@ -0,0 +1,44 @@
+package task;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded pool of task descriptions, so that tasks entered or loaded with the same
+ * description share one string.
+ * <p>
+ * The pool is a fixed table of slots chosen by the hash of a description. A description
+ * whose slot already holds an equal string is replaced by that string; otherwise it takes
+ * over the slot. The slots refer to their strings weakly, so the pool never keeps a description
+ * alive by itself, and its size does not grow with the number of distinct descriptions.
+ * The pool may be used from several threads at once.
+ * </p>
+ */
+public class DescriptionPool {
+    /** Number of slots in the pool, a power of two. */
+    private static final int SLOTS = 4096;
+
+    private static final AtomicReferenceArray<WeakReference<String>> slots = new AtomicReferenceArray<>(SLOTS);
+
+    private DescriptionPool() {
+    }
+
+    /**
+     * Returns a pooled string equal to the given description, pooling the description itself
+     * if no equal string is pooled.
+     *
+     * @param description the description
+     * @return an equal string, shared with other tasks where possible
+     */
+    public static String intern(String description) {
+        int hash = description.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+        WeakReference<String> reference = slots.get(slot);
+        String pooled = reference == null ? null : reference.get();
+        if (description.equals(pooled)) {
+            return pooled;
+        }
+        slots.set(slot, new WeakReference<>(description));
+        return description;
+    }
+}
@@ -0,0 +1,97 @@
+package task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A sorted index of the deadlines that are not done yet, keyed on their due dates.
+ * <p>
+ * Deadlines due at the same time share one entry, in the order they were indexed.
+ * Range queries walk only the entries in range, so they take logarithmic time plus
+ * time proportional to the number of deadlines returned.
+ * </p>
+ */
+public class DueDateIndex {
+    private final TreeMap<LocalDateTime, List<Deadline>> deadlines = new TreeMap<>();
+
+    /**
+     * Adds a task if it is a deadline that is not done. Other tasks are ignored.
+     *
+     * @param task the task to index
+     */
+    public void add(Task task) {
+        if (!(task instanceof Deadline) || task.isDone()) {
+            return;
+        }
+        Deadline deadline = (Deadline) task;
+        List<Deadline> due = deadlines.computeIfAbsent(deadline.getDueDate(), key -> new ArrayList<>());
+        for (Deadline indexed : due) {
+            if (indexed == deadline) {
+                return;
+            }
+        }
+        due.add(deadline);
+    }
+
+    /**
+     * Removes a task if it is an indexed deadline. Other tasks are ignored.
+     *
+     * @param task the task to remove
+     */
+    public void remove(Task task) {
+        if (!(task instanceof Deadline)) {
+            return;
+        }
+        LocalDateTime dueDate = ((Deadline) task).getDueDate();
+        List<Deadline> due = deadlines.get(dueDate);
+        if (due != null && due.removeIf(indexed -> indexed == task) && due.isEmpty()) {
+            deadlines.remove(dueDate);
+        }
+    }
+
+    /**
+     * Returns the deadlines due strictly before the given time, earliest first.
+     *
+     * @param time the exclusive upper bound
+     * @return the deadlines due before the time
+     */
+    public List<Deadline> before(LocalDateTime time) {
+        return collect(deadlines.headMap(time, false));
+    }
+
+    /**
+     * Returns the deadlines due within the given times, earliest first.
+     *
+     * @param from the inclusive lower bound
+     * @param to   the inclusive upper bound
+     * @return the deadlines due between the times
+     */
+    public List<Deadline> between(LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        return collect(deadlines.subMap(from, true, to, true));
+    }
+
+    /**
+     * Returns the deadlines that are due first.
+     *
+     * @return the deadlines sharing the earliest due date, or an empty list if there are none
+     */
+    public List<Deadline> next() {
+        Map.Entry<LocalDateTime, List<Deadline>> first = deadlines.firstEntry();
+        return first == null ? new ArrayList<>() : new ArrayList<>(first.getValue());
+    }
+
+    private static List<Deadline> collect(NavigableMap<LocalDateTime, List<Deadline>> range) {
+        List<Deadline> matches = new ArrayList<>();
+        for (List<Deadline> due : range.values()) {
+            matches.addAll(due);
+        }
+        return matches;
+    }
+}
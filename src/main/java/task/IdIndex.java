@@ -0,0 +1,127 @@
+package task;
+
+/**
+ * A hash index from task IDs to the positions of the tasks in a list.
+ * <p>
+ * The IDs and positions are kept in two primitive arrays with open addressing, so the index
+ * holds no object per task and a lookup takes constant time. Inserting or removing a task
+ * moves the tasks after it, and their positions have to be {@link #put(long, int) put} again
+ * by the owner of the index; appending a task only adds its own position.
+ * </p>
+ */
+public class IdIndex {
+    /** Key of an empty slot. Tasks in a list always have a positive ID. */
+    private static final long EMPTY = 0;
+
+    private long[] ids;
+    private int[] positions;
+    private int count;
+
+    /**
+     * Constructs an empty index with room for the given number of tasks.
+     *
+     * @param expected the number of tasks expected
+     */
+    public IdIndex(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        this.ids = new long[capacity];
+        this.positions = new int[capacity];
+    }
+
+    /**
+     * Returns the position of the task with the given ID.
+     *
+     * @param id the ID of the task
+     * @return the position, or {@code -1} if no task has the ID
+     */
+    public int get(long id) {
+        int mask = ids.length - 1;
+        for (int slot = slotOf(id, mask); ids[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                return positions[slot];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the position of the task with the given ID.
+     *
+     * @param id       the ID of the task, which must be positive
+     * @param position the position of the task
+     */
+    public void put(long id, int position) {
+        assert id != EMPTY : "Task must have an ID";
+
+        int mask = ids.length - 1;
+        int slot = slotOf(id, mask);
+        while (ids[slot] != EMPTY) {
+            if (ids[slot] == id) {
+                positions[slot] = position;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        ids[slot] = id;
+        positions[slot] = position;
+        if (++count * 2 > ids.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Removes the task with the given ID, if it is indexed. The slots after it are moved back
+     * so that every lookup still finds its ID before an empty slot.
+     *
+     * @param id the ID of the task
+     */
+    public void remove(long id) {
+        int mask = ids.length - 1;
+        int slot = slotOf(id, mask);
+        while (ids[slot] != id) {
+            if (ids[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        count--;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; ids[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slotOf(ids[next], mask);
+            // Move the entry into the hole unless its home lies cyclically after the hole.
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                ids[hole] = ids[next];
+                positions[hole] = positions[next];
+                hole = next;
+            }
+        }
+        ids[hole] = EMPTY;
+    }
+
+    /**
+     * Returns the number of tasks indexed.
+     *
+     * @return the number of tasks
+     */
+    public int size() {
+        return count;
+    }
+
+    private void grow() {
+        long[] oldIds = ids;
+        int[] oldPositions = positions;
+        ids = new long[oldIds.length * 2];
+        positions = new int[oldIds.length * 2];
+        count = 0;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != EMPTY) {
+                put(oldIds[i], oldPositions[i]);
+            }
+        }
+    }
+
+    private static int slotOf(long id, int mask) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,212 @@
+package task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * An interval tree over events, answering which events are running at a time or
+ * during a period.
+ * <p>
+ * The tree is a balanced (AVL) binary search tree ordered by event start, in which every node
+ * also records the latest end of any event in its subtree. A query skips every subtree whose
+ * latest end falls before the period and every right subtree starting after it, so it takes
+ * logarithmic time plus time proportional to the number of events returned. Events with the
+ * same start are kept in the order they were added.
+ * </p>
+ */
+public class IntervalTree {
+    private Node root;
+
+    /** Insertion number of every event in the tree, used to order events with the same start. */
+    private final IdentityHashMap<Event, Long> sequence = new IdentityHashMap<>();
+
+    /** Insertion number given to the next event. */
+    private long nextSequence;
+
+    /**
+     * Adds a task if it is an event that is not in the tree yet. Other tasks are ignored.
+     *
+     * @param task the task to add
+     */
+    public void add(Task task) {
+        if (!(task instanceof Event) || sequence.containsKey(task)) {
+            return;
+        }
+        Event event = (Event) task;
+        long key = nextSequence++;
+        sequence.put(event, key);
+        root = insert(root, new Node(event, key));
+    }
+
+    /**
+     * Removes a task if it is an event in the tree. Other tasks are ignored.
+     *
+     * @param task the task to remove
+     */
+    public void remove(Task task) {
+        Long key = task instanceof Event ? sequence.remove(task) : null;
+        if (key != null) {
+            root = delete(root, ((Event) task).getStart(), key);
+        }
+    }
+
+    /**
+     * Returns the number of events in the tree.
+     *
+     * @return the number of events
+     */
+    public int size() {
+        return sequence.size();
+    }
+
+    /**
+     * Returns the events running at some point within the given times, including events
+     * that start or end exactly at one of them.
+     *
+     * @param from the start of the period
+     * @param to   the end of the period
+     * @return the overlapping events, ordered by start
+     */
+    public List<Event> overlapping(LocalDateTime from, LocalDateTime to) {
+        List<Event> matches = new ArrayList<>();
+        if (!from.isAfter(to)) {
+            collect(root, from, to, matches);
+        }
+        return matches;
+    }
+
+    private static void collect(Node node, LocalDateTime from, LocalDateTime to, List<Event> matches) {
+        if (node == null || node.maxEnd.isBefore(from)) {
+            return;
+        }
+        collect(node.left, from, to, matches);
+        if (node.start.isAfter(to)) {
+            return;
+        }
+        if (!node.end.isBefore(from)) {
+            matches.add(node.event);
+        }
+        collect(node.right, from, to, matches);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.key, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, LocalDateTime start, long key) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(start, key, node);
+        if (order < 0) {
+            node.left = delete(node.left, start, key);
+        } else if (order > 0) {
+            node.right = delete(node.right, start, key);
+        } else if (node.left == null || node.right == null) {
+            return node.left != null ? node.left : node.right;
+        } else {
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = delete(node.right, successor.start, successor.key);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private static int compare(LocalDateTime start, long key, Node node) {
+        int order = start.compareTo(node.start);
+        return order != 0 ? order : Long.compare(key, node.key);
+    }
+
+    /**
+     * Restores the AVL balance of a node whose subtrees differ in height by at most two,
+     * and updates its height and latest end.
+     *
+     * @param node the node to balance
+     * @return the root of the balanced subtree
+     */
+    private static Node balance(Node node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        } else if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(node.maxEnd)) {
+            node.maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(node.maxEnd)) {
+            node.maxEnd = node.right.maxEnd;
+        }
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * A node holding one event.
+     */
+    private static class Node {
+        private final Event event;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final long key;
+        private LocalDateTime maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        Node(Event event, long key) {
+            this.event = event;
+            this.start = event.getStart();
+            this.end = event.getEnd();
+            this.key = key;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package task;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A hash index of the tasks that are not done yet, keyed on their contents.
+ * <p>
+ * Two tasks have the same contents when they are of the same type, their descriptions are
+ * equal once {@link Task#normalize(String) normalized} for searches, and their dates are equal.
+ * Tasks with the same contents share a bucket, a hash set in which each task is only equal to
+ * itself. Finding a pending task with the same contents as another, and adding or removing a
+ * task, therefore take constant time however many identical tasks a cart holds.
+ * </p>
+ */
+public class PendingIndex {
+    private final HashMap<List<Object>, Set<Task>> tasks = new HashMap<>();
+
+    /**
+     * Adds a task if it is not done. Done tasks are ignored, and adding a task that is already
+     * indexed has no effect.
+     *
+     * @param task the task to index
+     */
+    public void add(Task task) {
+        if (!task.isDone()) {
+            tasks.computeIfAbsent(key(task), key -> new HashSet<>(2)).add(task);
+        }
+    }
+
+    /**
+     * Removes a task if it is indexed.
+     *
+     * @param task the task to remove
+     */
+    public void remove(Task task) {
+        List<Object> key = key(task);
+        Set<Task> same = tasks.get(key);
+        if (same != null && same.remove(task) && same.isEmpty()) {
+            tasks.remove(key);
+        }
+    }
+
+    /**
+     * Returns a pending task with the same contents as the given one, other than the task itself.
+     *
+     * @param task the task to compare with
+     * @return a matching pending task, or {@code null} if there is none
+     */
+    public Task findSame(Task task) {
+        for (Task indexed : tasks.getOrDefault(key(task), Set.of())) {
+            if (indexed != task) {
+                return indexed;
+            }
+        }
+        return null;
+    }
+
+    private static List<Object> key(Task task) {
+        String description = task.getNormalizedDescription();
+        if (task instanceof Deadline) {
+            return List.of('D', description, ((Deadline) task).getDueDate());
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            return List.of('E', description, event.getStart(), event.getEnd());
+        }
+        return List.of('T', description);
+    }
+}
@@ -0,0 +1,486 @@
+package task;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Stores tasks in a balanced binary tree ordered by position whose nodes are never changed.
+ * <p>
+ * Every node records the size of its subtree, so reading, inserting
+ * and removing a task at any position take logarithmic time. A change copies only the nodes on
+ * the path to the changed position and shares every other node with the tree before it, and the
+ * new root is then published in a single write. A {@link #snapshot()} is therefore just the
+ * current root: taking one costs nothing, and it can be read from any thread while the store
+ * keeps changing. The store itself may only be changed from one thread at a time.
+ * </p>
+ * <p>
+ * For the same reason, the store can hand out every {@link #version()} it passes through and
+ * later {@link #restore(Version) return} to any of them in constant time. Each version only holds
+ * on to the nodes changed since the versions kept before it, and the {@link #changesTo(Version)
+ * changes} between two versions are found by walking only the nodes they do not share.
+ * </p>
+ */
+public class PersistentTaskStore implements TaskStore {
+    private volatile Node root;
+
+    /**
+     * Constructs an empty store.
+     */
+    public PersistentTaskStore() {
+    }
+
+    /**
+     * Constructs a store holding the given tasks, in order. The list is copied.
+     *
+     * @param tasks the tasks to store
+     */
+    public PersistentTaskStore(List<Task> tasks) {
+        assert tasks != null : "Task list cannot be null";
+
+        this.root = build(tasks, 0, tasks.size());
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public Task get(int index) {
+        return get(root, index);
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        Node current = root;
+        if (index < 0 || index > size(current)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size(current));
+        }
+        root = insert(current, index, task);
+    }
+
+    @Override
+    public Task remove(int index) {
+        Node current = root;
+        Task task = get(current, index);
+        root = delete(current, index);
+        return task;
+    }
+
+    @Override
+    public void set(int index, Task task) {
+        Node current = root;
+        get(current, index);
+        root = replace(current, index, task);
+    }
+
+    @Override
+    public List<Task> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return PersistentTaskStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return PersistentTaskStore.this.size();
+            }
+
+            @Override
+            public Iterator<Task> iterator() {
+                return new InOrderIterator(root);
+            }
+        };
+    }
+
+    /**
+     * Returns the tasks as they are now, sharing the current tree rather than copying it.
+     *
+     * @return a read-only view of the current tasks
+     */
+    @Override
+    public List<Task> snapshot() {
+        Node snapshot = root;
+        return Collections.unmodifiableList(new AbstractList<>() {
+            @Override
+            public Task get(int index) {
+                return PersistentTaskStore.get(snapshot, index);
+            }
+
+            @Override
+            public int size() {
+                return PersistentTaskStore.size(snapshot);
+            }
+
+            @Override
+            public Iterator<Task> iterator() {
+                return new InOrderIterator(snapshot);
+            }
+        });
+    }
+
+    /**
+     * Returns the current version of the tasks, which stays the same however the store changes.
+     *
+     * @return the current version
+     */
+    public Version version() {
+        return new Version(root);
+    }
+
+    /**
+     * Makes the tasks what they were in the given version, without copying them.
+     *
+     * @param version a version returned by {@link #version()}
+     */
+    public void restore(Version version) {
+        assert version != null : "Version cannot be null";
+
+        root = version.root;
+    }
+
+    /**
+     * Finds the tasks the current version and the given one do not share, by walking both trees
+     * from the top down together. A node is only reached while every node above it differs
+     * between the trees, and the nodes reached are taken a height at a time, tallest first, so
+     * a node reached in both trees is always found in both at once and skipped with everything
+     * below it. The time taken therefore grows with the number of nodes that differ, not with
+     * the size of the trees.
+     * <p>
+     * A task whose node was only copied, such as one on the path to a change, is reached in both
+     * trees but left out of the changes, since both versions hold it.
+     * </p>
+     *
+     * @param version the version to compare with
+     * @return the changes that turn the current tasks into those of the version
+     */
+    Changes changesTo(Version version) {
+        assert version != null : "Version cannot be null";
+
+        Node from = root;
+        Node to = version.root;
+        int levels = Math.max(height(from), height(to));
+        List<List<Reached>> fromLevels = levels(levels);
+        List<List<Reached>> toLevels = levels(levels);
+        reach(fromLevels, from, 0);
+        reach(toLevels, to, 0);
+        List<Reached> removed = new ArrayList<>();
+        List<Reached> added = new ArrayList<>();
+        for (int height = levels; height > 0; height--) {
+            List<Reached> fromNodes = fromLevels.get(height);
+            List<Reached> toNodes = toLevels.get(height);
+            Set<Node> inFrom = nodesOf(fromNodes);
+            Set<Node> inTo = nodesOf(toNodes);
+            for (Reached reached : fromNodes) {
+                if (!inTo.contains(reached.node)) {
+                    removed.add(reached);
+                    reachChildren(fromLevels, reached);
+                }
+            }
+            for (Reached reached : toNodes) {
+                if (!inFrom.contains(reached.node)) {
+                    added.add(reached);
+                    reachChildren(toLevels, reached);
+                }
+            }
+        }
+        return new Changes(removed, added);
+    }
+
+    private static List<List<Reached>> levels(int levels) {
+        List<List<Reached>> nodes = new ArrayList<>(levels + 1);
+        for (int height = 0; height <= levels; height++) {
+            nodes.add(new ArrayList<>());
+        }
+        return nodes;
+    }
+
+    private static void reach(List<List<Reached>> levels, Node node, int offset) {
+        if (node != null) {
+            levels.get(node.height).add(new Reached(node, offset));
+        }
+    }
+
+    private static void reachChildren(List<List<Reached>> levels, Reached reached) {
+        reach(levels, reached.node.left, reached.offset);
+        reach(levels, reached.node.right, reached.position() + 1);
+    }
+
+    private static Set<Node> nodesOf(List<Reached> reached) {
+        Set<Node> nodes = Collections.newSetFromMap(new IdentityHashMap<>(2 * reached.size()));
+        for (Reached r : reached) {
+            nodes.add(r.node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the task at a position of a tree.
+     *
+     * @param node  the root of the tree
+     * @param index the position of the task
+     * @return the task
+     * @throws IndexOutOfBoundsException if there is no task at the position
+     */
+    private static Task get(Node node, int index) {
+        if (index < 0 || index >= size(node)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size(node));
+        }
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.task;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private static Node build(List<Task> tasks, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return new Node(tasks.get(mid), build(tasks, from, mid), build(tasks, mid + 1, to));
+    }
+
+    private static Node insert(Node node, int index, Task task) {
+        if (node == null) {
+            return new Node(task, null, null);
+        }
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return balance(node.task, insert(node.left, index, task), node.right);
+        }
+        return balance(node.task, node.left, insert(node.right, index - leftSize - 1, task));
+    }
+
+    private static Node delete(Node node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(node.task, delete(node.left, index), node.right);
+        } else if (index > leftSize) {
+            return balance(node.task, node.left, delete(node.right, index - leftSize - 1));
+        } else if (node.left == null || node.right == null) {
+            return node.left != null ? node.left : node.right;
+        }
+        return balance(get(node.right, 0), node.left, delete(node.right, 0));
+    }
+
+    private static Node replace(Node node, int index, Task task) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node(node.task, replace(node.left, index, task), node.right);
+        } else if (index > leftSize) {
+            return new Node(node.task, node.left, replace(node.right, index - leftSize - 1, task));
+        }
+        return new Node(task, node.left, node.right);
+    }
+
+    /**
+     * Returns a node joining two subtrees whose heights differ by at most two, rotating it
+     * to restore the AVL balance where needed.
+     *
+     * @param task  the task of the node
+     * @param left  the subtree before the task
+     * @param right the subtree after the task
+     * @return the root of the balanced subtree
+     */
+    private static Node balance(Task task, Node left, Node right) {
+        int skew = height(left) - height(right);
+        if (skew > 1) {
+            if (height(left.left) < height(left.right)) {
+                Node pivot = left.right;
+                return new Node(pivot.task, new Node(left.task, left.left, pivot.left),
+                        new Node(task, pivot.right, right));
+            }
+            return new Node(left.task, left.left, new Node(task, left.right, right));
+        } else if (skew < -1) {
+            if (height(right.right) < height(right.left)) {
+                Node pivot = right.left;
+                return new Node(pivot.task, new Node(task, left, pivot.left),
+                        new Node(right.task, pivot.right, right.right));
+            }
+            return new Node(right.task, new Node(task, left, right.left), right.right);
+        }
+        return new Node(task, left, right);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * A version of the tasks in a store, which is never changed.
+     */
+    public static final class Version {
+        private final Node root;
+
+        private Version(Node root) {
+            this.root = root;
+        }
+
+        /**
+         * Returns the number of tasks in this version.
+         *
+         * @return the number of tasks
+         */
+        public int size() {
+            return PersistentTaskStore.size(root);
+        }
+    }
+
+    /**
+     * The tasks that differ between two versions, with their positions in the version holding them.
+     * Since tasks are only ever added, removed or replaced, the tasks both versions hold are in the
+     * same order in each, so removing the removed tasks and then inserting the added ones, at
+     * their positions, turns the first version into the second.
+     */
+    public static final class Changes {
+        /** Positions of the removed tasks in the first version, in ascending order. */
+        final int[] removedAt;
+        final Task[] removed;
+
+        /** Positions of the added tasks in the second version, in ascending order. */
+        final int[] addedAt;
+        final Task[] added;
+
+        private Changes(List<Reached> removed, List<Reached> added) {
+            Set<Task> inRemoved = tasksIn(removed);
+            Set<Task> inAdded = tasksIn(added);
+            removed.removeIf(r -> inAdded.contains(r.node.task));
+            added.removeIf(r -> inRemoved.contains(r.node.task));
+            removed.sort(Comparator.comparingInt(Reached::position));
+            added.sort(Comparator.comparingInt(Reached::position));
+            this.removedAt = positionsOf(removed);
+            this.removed = tasksOf(removed);
+            this.addedAt = positionsOf(added);
+            this.added = tasksOf(added);
+        }
+
+        public int removedCount() {
+            return removed.length;
+        }
+
+        public int removedAt(int i) {
+            return removedAt[i];
+        }
+
+        public Task removed(int i) {
+            return removed[i];
+        }
+
+        public int addedCount() {
+            return added.length;
+        }
+
+        public int addedAt(int i) {
+            return addedAt[i];
+        }
+
+        public Task added(int i) {
+            return added[i];
+        }
+
+        private static Set<Task> tasksIn(List<Reached> reached) {
+            Set<Task> tasks = Collections.newSetFromMap(new IdentityHashMap<>(2 * reached.size()));
+            for (Reached r : reached) {
+                tasks.add(r.node.task);
+            }
+            return tasks;
+        }
+
+        private static int[] positionsOf(List<Reached> reached) {
+            return reached.stream().mapToInt(Reached::position).toArray();
+        }
+
+        private static Task[] tasksOf(List<Reached> reached) {
+            return reached.stream().map(r -> r.node.task).toArray(Task[]::new);
+        }
+    }
+
+    /**
+     * A node reached while comparing two trees, with the position of the first task below it.
+     */
+    private static class Reached {
+        private final Node node;
+        private final int offset;
+
+        Reached(Node node, int offset) {
+            this.node = node;
+            this.offset = offset;
+        }
+
+        int position() {
+            return offset + size(node.left);
+        }
+    }
+
+    /**
+     * A node holding one task. Nodes are never changed once built.
+     */
+    private static class Node {
+        private final Task task;
+        private final Node left;
+        private final Node right;
+        private final int height;
+        private final int size;
+
+        Node(Task task, Node left, Node right) {
+            this.task = task;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    /**
+     * Walks a tree in order, keeping the path to the next node on a stack.
+     */
+    private static class InOrderIterator implements Iterator<Task> {
+        private final ArrayDeque<Node> path = new ArrayDeque<>();
+
+        InOrderIterator(Node root) {
+            descendLeft(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public Task next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node node = path.pop();
+            descendLeft(node.right);
+            return node.task;
+        }
+
+        private void descendLeft(Node node) {
+            while (node != null) {
+                path.push(node);
+                node = node.left;
+            }
+        }
+    }
+}
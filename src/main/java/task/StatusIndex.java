@@ -0,0 +1,226 @@
+package task;
+
+import java.util.Arrays;
+
+/**
+ * A bitmap of which positions in a list hold done tasks, together with running counts
+ * of tasks by type and status.
+ * <p>
+ * The bitmap packs one bit per task into {@code long} words, so inserting or removing a task
+ * shifts the words after its position rather than the tasks themselves, and listing the tasks
+ * of one status skips whole words with no match. The counts are updated with every change,
+ * so they are always available in constant time.
+ * </p>
+ */
+public class StatusIndex {
+    /** Type number of {@link ToDo} tasks. */
+    public static final int TODO = 0;
+
+    /** Type number of {@link Deadline} tasks. */
+    public static final int DEADLINE = 1;
+
+    /** Type number of {@link Event} tasks. */
+    public static final int EVENT = 2;
+
+    private static final int TYPES = 3;
+
+    private long[] words = new long[16];
+    private int size;
+
+    private final int[] total = new int[TYPES];
+    private final int[] done = new int[TYPES];
+
+    /**
+     * Returns the type number of a task type code, as used by {@link TaskStore#typeOf(int)}.
+     *
+     * @param type the type code ({@code 'T'}, {@code 'D'} or {@code 'E'})
+     * @return the type number
+     */
+    public static int typeNumber(char type) {
+        switch (type) {
+            case 'D':
+                return DEADLINE;
+            case 'E':
+                return EVENT;
+            default:
+                return TODO;
+        }
+    }
+
+    /**
+     * Inserts a task at a position, moving the tasks after it back by one.
+     *
+     * @param position the position of the new task
+     * @param type     the type number of the task
+     * @param isDone   whether the task is done
+     */
+    public void insert(int position, int type, boolean isDone) {
+        assert position >= 0 && position <= size : "Position must be within the list";
+
+        if (size + 1 > words.length * 64L) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        int word = position >>> 6;
+        for (int i = size >>> 6; i > word; i--) {
+            words[i] = (words[i] << 1) | (words[i - 1] >>> 63);
+        }
+        long below = lowBits(position & 63);
+        words[word] = (words[word] & below) | ((words[word] & ~below) << 1);
+        size++;
+
+        total[type]++;
+        if (isDone) {
+            words[word] |= 1L << position;
+            done[type]++;
+        }
+    }
+
+    /**
+     * Removes the task at a position, moving the tasks after it forward by one.
+     *
+     * @param position the position of the removed task
+     * @param type     the type number of the task
+     */
+    public void remove(int position, int type) {
+        assert position >= 0 && position < size : "Position must be within the list";
+
+        total[type]--;
+        if (isDone(position)) {
+            done[type]--;
+        }
+
+        int word = position >>> 6;
+        int lastWord = (size - 1) >>> 6;
+        long below = lowBits(position & 63);
+        long carry = word < lastWord ? words[word + 1] << 63 : 0;
+        words[word] = (words[word] & below) | ((words[word] >>> 1) & ~below) | carry;
+        for (int i = word + 1; i <= lastWord; i++) {
+            words[i] = (words[i] >>> 1) | (i < lastWord ? words[i + 1] << 63 : 0);
+        }
+        size--;
+    }
+
+    /**
+     * Removes the tasks at several positions in a single pass over the bits after the first of
+     * them, moving each remaining task forward once.
+     *
+     * @param positions the positions of the removed tasks, in ascending order without repeats
+     * @param types     the type number of each removed task
+     */
+    public void removeAll(int[] positions, int[] types) {
+        if (positions.length == 0) {
+            return;
+        }
+        for (int i = 0; i < positions.length; i++) {
+            total[types[i]]--;
+            if (isDone(positions[i])) {
+                done[types[i]]--;
+            }
+        }
+        int to = positions[0];
+        int next = 0;
+        for (int from = positions[0]; from < size; from++) {
+            if (next < positions.length && positions[next] == from) {
+                next++;
+            } else {
+                setBit(to++, isDone(from));
+            }
+        }
+        for (int position = to; position < size; position++) {
+            setBit(position, false);
+        }
+        size = to;
+    }
+
+    private void setBit(int position, boolean isSet) {
+        if (isSet) {
+            words[position >>> 6] |= 1L << position;
+        } else {
+            words[position >>> 6] &= ~(1L << position);
+        }
+    }
+
+    /**
+     * Changes the status of the task at a position.
+     *
+     * @param position the position of the task
+     * @param type     the type number of the task
+     * @param isDone   the new status
+     */
+    public void setDone(int position, int type, boolean isDone) {
+        if (isDone(position) == isDone) {
+            return;
+        }
+        if (isDone) {
+            words[position >>> 6] |= 1L << position;
+            done[type]++;
+        } else {
+            words[position >>> 6] &= ~(1L << position);
+            done[type]--;
+        }
+    }
+
+    /**
+     * Returns whether the task at a position is done.
+     *
+     * @param position the position of the task
+     * @return {@code true} if the task is done
+     */
+    public boolean isDone(int position) {
+        return (words[position >>> 6] & (1L << position)) != 0;
+    }
+
+    /**
+     * Returns the first position at or after the given one holding a task of the given status.
+     *
+     * @param from   the position to start from
+     * @param isDone the status to look for
+     * @return the position, or {@code -1} if there is none
+     */
+    public int next(int from, boolean isDone) {
+        if (from >= size) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = (isDone ? words[word] : ~words[word]) & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                int position = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return position < size ? position : -1;
+            }
+            if (++word > (size - 1) >>> 6) {
+                return -1;
+            }
+            bits = isDone ? words[word] : ~words[word];
+        }
+    }
+
+    /**
+     * Returns the number of tasks with the given status.
+     *
+     * @param isDone the status to count
+     * @return the number of tasks
+     */
+    public int count(boolean isDone) {
+        int count = 0;
+        for (int type = 0; type < TYPES; type++) {
+            count += count(type, isDone);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of tasks of the given type and status.
+     *
+     * @param type   the type number to count
+     * @param isDone the status to count
+     * @return the number of tasks
+     */
+    public int count(int type, boolean isDone) {
+        return isDone ? done[type] : total[type] - done[type];
+    }
+
+    private static long lowBits(int count) {
+        return count == 0 ? 0 : -1L >>> (64 - count);
+    }
+}
@@ -1,5 +1,8 @@
 package task;
 
+import java.text.Normalizer;
+import java.util.Locale;
+
 /**
  * The {@code Task} class represents a general task with a description and completion status.
  * <p>
@@ -16,6 +19,12 @@ public class Task {
     /** Whether the task has been marked as completed. */
     protected boolean isDone;
 
+    /** Stable identifier of the task, or {@code 0} until one is assigned. */
+    private long id;
+
+    /** The description as compared by searches, computed when first needed. */
+    private String normalizedDescription;
+
     /**
      * Constructs a new {@code Task} with the given description.
      * By default, a new task is not marked as done.
@@ -52,6 +61,28 @@ public class Task {
         this.isDone = false;
     }
 
+    /**
+     * Returns the stable identifier of this task, which stays the same when the task
+     * moves within the list and across program runs.
+     *
+     * @return the identifier, or {@code 0} if none has been assigned yet
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the stable identifier of this task.
+     * Identifiers are assigned by {@link TaskList} and restored by the storage.
+     *
+     * @param id the identifier, which must be positive
+     */
+    public void setId(long id) {
+        assert id > 0 : "Task ID must be positive";
+
+        this.id = id;
+    }
+
     /**
      * Returns whether this task is completed.
      *
@@ -70,6 +101,30 @@ public class Task {
         return description;
     }
 
+    /**
+     * Returns the description of this task in the form compared by searches,
+     * as produced by {@link #normalize(String)}. The result is computed once and cached.
+     *
+     * @return the normalized task description
+     */
+    public String getNormalizedDescription() {
+        if (normalizedDescription == null) {
+            normalizedDescription = normalize(description);
+        }
+        return normalizedDescription;
+    }
+
+    /**
+     * Normalizes text for case-insensitive searching, folding compatible Unicode forms
+     * (such as full-width letters) together and converting to lower case.
+     *
+     * @param text the text to normalize
+     * @return the normalized text
+     */
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
     /**
      * Returns the string representation of this task,
      * including its completion status and description.
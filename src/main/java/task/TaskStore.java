@@ -0,0 +1,149 @@
+package task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the tasks of a {@link TaskList} in order.
+ * <p>
+ * The store only keeps tasks by position; everything else a {@code TaskList} offers
+ * is built on top of these operations, so different stores can trade memory and
+ * speed without changing how the list behaves.
+ * </p>
+ */
+public interface TaskStore {
+    /**
+     * Returns the number of tasks in the store.
+     *
+     * @return the number of tasks
+     */
+    int size();
+
+    /**
+     * Returns the task at the given position.
+     *
+     * @param index the position of the task, between {@code 0} and {@code size() - 1}
+     * @return the task at that position
+     */
+    Task get(int index);
+
+    /**
+     * Inserts a task at the given position, shifting later tasks back by one.
+     *
+     * @param index the position to insert at, between {@code 0} and {@code size()}
+     * @param task  the task to insert
+     */
+    void add(int index, Task task);
+
+    /**
+     * Removes the task at the given position, shifting later tasks forward by one.
+     *
+     * @param index the position of the task to remove
+     * @return the removed task
+     */
+    Task remove(int index);
+
+    /**
+     * Removes the tasks at the given positions, shifting later tasks forward. Stores that keep
+     * their tasks in an array move each remaining task once, however many tasks are removed.
+     *
+     * @param indices the positions of the tasks to remove, in ascending order without repeats
+     * @return the removed tasks, in the order of their positions
+     */
+    default List<Task> removeAll(int[] indices) {
+        Task[] removed = new Task[indices.length];
+        for (int i = indices.length - 1; i >= 0; i--) {
+            removed[i] = remove(indices[i]);
+        }
+        return new ArrayList<>(Arrays.asList(removed));
+    }
+
+    /**
+     * Stores the given task at a position, replacing the task held there.
+     * Must also be called after a task returned by {@link #get(int)} is changed,
+     * so that stores which do not keep every task in memory keep the change.
+     *
+     * @param index the position to store the task at
+     * @param task  the task to store
+     */
+    void set(int index, Task task);
+
+    /**
+     * Returns whether the task at the given position is done.
+     * Stores that do not keep every task in memory may answer without reading the task.
+     *
+     * @param index the position of the task
+     * @return {@code true} if the task is done
+     */
+    default boolean isDone(int index) {
+        return get(index).isDone();
+    }
+
+    /**
+     * Returns the ID of the task at the given position.
+     * Stores that do not keep every task in memory may answer without reading the task.
+     *
+     * @param index the position of the task
+     * @return the ID of the task
+     */
+    default long idOf(int index) {
+        return get(index).getId();
+    }
+
+    /**
+     * Returns the type code of the task at the given position: {@code 'T'} for a {@link ToDo},
+     * {@code 'D'} for a {@link Deadline} and {@code 'E'} for an {@link Event}.
+     * Stores that do not keep every task in memory may answer without reading the task.
+     *
+     * @param index the position of the task
+     * @return the type code of the task
+     */
+    default char typeOf(int index) {
+        return typeOf(get(index));
+    }
+
+    /**
+     * Returns the type code of a task.
+     *
+     * @param task the task
+     * @return {@code 'T'}, {@code 'D'} or {@code 'E'}
+     */
+    static char typeOf(Task task) {
+        if (task instanceof Deadline) {
+            return 'D';
+        } else if (task instanceof Event) {
+            return 'E';
+        }
+        return 'T';
+    }
+
+    /**
+     * Returns the positions of the tasks whose descriptions contain the query, both as
+     * {@link Task#normalize(String) normalized} for searches, by scanning the descriptions
+     * where the store keeps them. Stores that cannot do so without reading every task return
+     * {@code null}, and are searched through an index of their tasks instead.
+     *
+     * @param query the text to look for
+     * @return the positions of the matching tasks in order, or {@code null}
+     */
+    default List<Integer> findContaining(String query) {
+        return null;
+    }
+
+    /**
+     * Returns the tasks as a list. Changes to the store are visible through the list,
+     * and the list may be read-only.
+     *
+     * @return the tasks in order
+     */
+    List<Task> asList();
+
+    /**
+     * Returns the tasks as they are now, as a list that can be read from another thread
+     * while the store keeps changing.
+     *
+     * @return a read-only copy of the tasks in order
+     */
+    List<Task> snapshot();
+}
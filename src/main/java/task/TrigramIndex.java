@@ -0,0 +1,115 @@
+package task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A substring index over task descriptions, built from the trigrams (runs of three
+ * characters) of their normalized form.
+ * <p>
+ * Each trigram maps to the set of tasks whose description contains it. A query is answered
+ * by intersecting the postings of its own trigrams, starting from the smallest, and then
+ * verifying each remaining candidate with a plain substring check on the cached
+ * {@link Task#getNormalizedDescription()}. Queries shorter than a trigram are checked
+ * against every task.
+ * </p>
+ */
+public class TrigramIndex {
+    /** Number of characters in an indexed gram. */
+    private static final int GRAM_LENGTH = 3;
+
+    private final HashMap<Long, Set<Task>> postings = new HashMap<>();
+
+    /** Every indexed task, in the order it was indexed. */
+    private final LinkedHashSet<Task> tasks = new LinkedHashSet<>();
+
+    /**
+     * Adds a task under every trigram of its description.
+     *
+     * @param task the task to index
+     */
+    public void add(Task task) {
+        tasks.add(task);
+        for (long gram : grams(task.getNormalizedDescription())) {
+            postings.computeIfAbsent(gram, key -> new LinkedHashSet<>()).add(task);
+        }
+    }
+
+    /**
+     * Removes a task from the postings of every trigram of its description.
+     *
+     * @param task the task to remove
+     */
+    public void remove(Task task) {
+        tasks.remove(task);
+        for (long gram : grams(task.getNormalizedDescription())) {
+            Set<Task> posting = postings.get(gram);
+            if (posting != null && posting.remove(task) && posting.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Returns the tasks whose normalized descriptions contain the normalized query.
+     *
+     * @param query the text to look for
+     * @return the matching tasks, in no particular order
+     */
+    public List<Task> find(String query) {
+        String normalized = Task.normalize(query);
+        List<Task> matches = new ArrayList<>();
+        if (normalized.length() < GRAM_LENGTH) {
+            for (Task task : tasks) {
+                if (task.getNormalizedDescription().contains(normalized)) {
+                    matches.add(task);
+                }
+            }
+            return matches;
+        }
+
+        List<Set<Task>> queryPostings = new ArrayList<>();
+        for (long gram : grams(normalized)) {
+            Set<Task> posting = postings.getOrDefault(gram, Collections.emptySet());
+            if (posting.isEmpty()) {
+                return matches;
+            }
+            queryPostings.add(posting);
+        }
+        queryPostings.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        for (Task task : queryPostings.get(0)) {
+            if (isInAll(task, queryPostings) && task.getNormalizedDescription().contains(normalized)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean isInAll(Task task, List<Set<Task>> queryPostings) {
+        for (int i = 1; i < queryPostings.size(); i++) {
+            if (!queryPostings.get(i).contains(task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the distinct trigrams of normalized text, each packed into a {@code long}.
+     *
+     * @param text the normalized text
+     * @return the packed trigrams
+     */
+    private static Set<Long> grams(String text) {
+        LinkedHashSet<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,68 @@
+package task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link TaskList} that keeps every version it passes through, so that it can go back to any
+ * of them at once.
+ * <p>
+ * The tasks are held in a {@link PersistentTaskStore}, where a change copies only the few nodes
+ * it touches. A {@link PersistentTaskStore.Version} taken before and after each command is
+ * therefore enough to undo or redo any number of commands in constant time, without running
+ * them backwards or copying the list, and the versions kept only cost the nodes that changed.
+ * Since a task may be shared by several versions, marking or unmarking a task puts a copy with
+ * the new status in its place instead of changing it.
+ * </p>
+ * <p>
+ * Restoring a version updates the indexes that have been built from the tasks the two versions
+ * do not share, so the work grows with the changes between them rather than with the list.
+ * </p>
+ */
+public class VersionedTaskList extends TaskList {
+    private final PersistentTaskStore store;
+
+    /**
+     * Constructs a list holding the given tasks, in order, giving an ID to each task that has
+     * none. The list is copied.
+     *
+     * @param tasks the tasks to hold
+     */
+    public VersionedTaskList(List<Task> tasks) {
+        this(new PersistentTaskStore(assignIds(tasks)));
+    }
+
+    /**
+     * Constructs an empty list.
+     */
+    public VersionedTaskList() {
+        this(new ArrayList<>());
+    }
+
+    private VersionedTaskList(PersistentTaskStore store) {
+        super(store, true);
+        this.store = store;
+    }
+
+    /**
+     * Returns the current version of the list, which later changes leave as it is.
+     *
+     * @return the current version
+     */
+    public PersistentTaskStore.Version version() {
+        return store.version();
+    }
+
+    /**
+     * Makes the list what it was in the given version, however many changes away it is.
+     *
+     * @param version a version returned by {@link #version()}
+     * @return the changes made to the list, for the caller to persist
+     */
+    public PersistentTaskStore.Changes restore(PersistentTaskStore.Version version) {
+        PersistentTaskStore.Changes changes = store.changesTo(version);
+        store.restore(version);
+        reindex(changes);
+        return changes;
+    }
+}
@@ -5,6 +5,7 @@ import task.Task;
 import task.TaskList;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -41,8 +42,8 @@ public class Ui {
 
             --- Commands ---
 
-            1. list
-               View all items currently in your cart.
+            1. list [done | pending]
+               View all items in your cart, or only purchased or unpurchased ones.
 
             2. todo <item>
                Add a grocery item to your cart.
@@ -53,20 +54,44 @@ public class Ui {
             4. event <item> /from <yyyy-MM-dd HH:mm> /to <yyyy-MM-dd HH:mm>
                Add a promotional period or sale.
 
-            5. mark <item number>
-               Mark an item as purchased.
+            5. mark <item numbers>
+               Mark items as purchased, e.g. mark 2 / mark 1-5,8 / mark all.
 
-            6. unmark <item number>
-               Return a purchased item back to the cart.
+            6. unmark <item numbers>
+               Return purchased items back to the cart, e.g. unmark 3-6.
 
-            7. delete <item number>
-               Remove an item from the cart.
+            7. delete <item numbers>
+               Remove items from the cart, e.g. delete 5,9,12-40.
 
-            8. undo / redo
-               Undo or redo the last action.
+            8. find <keyword>
+               Find items whose names contain the keyword.
 
-            9. bye
-               Exit JimmyTimmy and save your cart.
+            9. due-before <yyyy-MM-dd HH:mm>
+               List unpurchased items expiring before a time.
+
+            10. due-between <yyyy-MM-dd HH:mm> /to <yyyy-MM-dd HH:mm>
+                List unpurchased items expiring within a period.
+
+            11. next
+                Show the unpurchased items that expire first.
+
+            12. active <yyyy-MM-dd HH:mm>
+                List promotions running at a time.
+
+            13. overlap <yyyy-MM-dd HH:mm> /to <yyyy-MM-dd HH:mm>
+                List promotions running during a period.
+
+            14. summary
+                Count purchased and unpurchased items by type.
+
+            15. undo / redo [count]
+                Undo or redo the last action, or the last count actions.
+
+            16. version [number]
+                Show the current version of your cart, or jump to another.
+
+            17. bye
+                Exit JimmyTimmy and save your cart.
 
             --- Tips ---
             - Use correct date/time format: yyyy-MM-dd HH:mm
@@ -181,7 +206,7 @@ public class Ui {
      * @param tasks the list of tasks to display
      * @throws JimmyTimmyException if the list is empty
      */
-    public void showTaskList(ArrayList<Task> tasks) throws JimmyTimmyException {
+    public void showTaskList(List<Task> tasks) throws JimmyTimmyException {
         if (tasks.isEmpty()) {
             throw new JimmyTimmyException("Your cart is empty!");
         } else {
@@ -0,0 +1,621 @@
+package storage;
+
+import command.AddCommand;
+import command.DeleteCommand;
+import command.History;
+import command.MarkCommand;
+import command.RedoCommand;
+import command.Revision;
+import command.UndoCommand;
+import command.UndoableCommand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.Deadline;
+import task.Event;
+import task.PersistentTaskStore;
+import task.Task;
+import task.TaskList;
+import task.ToDo;
+import task.VersionedTaskList;
+import ui.Ui;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StorageTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void journalReplaysMutations() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.load());
+
+        tasks.addTask(new ToDo("milk"));
+        storage.recordAdd(tasks, 0, tasks.getTask(0));
+        tasks.addTask(new Deadline("eggs", LocalDateTime.of(2025, 9, 5, 18, 0)));
+        storage.recordAdd(tasks, 1, tasks.getTask(1));
+        tasks.markTask(1);
+        storage.recordMark(tasks, 1, true);
+        Task removed = tasks.deleteTask(0);
+        storage.recordDelete(tasks, 0, removed);
+
+        ArrayList<Task> loaded = new Storage(path, true).load();
+        assertEquals(1, loaded.size());
+        assertEquals("eggs", loaded.get(0).getDescription());
+        assertTrue(loaded.get(0).isDone());
+    }
+
+    @Test
+    public void saveClearsJournal() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.load());
+
+        tasks.addTask(new ToDo("bread"));
+        storage.recordAdd(tasks, 0, tasks.getTask(0));
+        storage.save(tasks.getTasks());
+
+        assertEquals(0, new File(path + ".journal").length());
+        assertEquals(1, new Storage(path, true).load().size());
+    }
+
+    @Test
+    public void compactionFoldsJournalIntoDataFile() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, true);
+        storage.setCompactionThreshold(5, 0);
+        TaskList tasks = new TaskList(storage.load());
+
+        for (int i = 0; i < 20; i++) {
+            tasks.addTask(new ToDo("item " + i));
+            storage.recordAdd(tasks, i, tasks.getTask(i));
+        }
+        storage.save(tasks.getTasks());
+
+        assertFalse(new File(path + ".journal.1").exists());
+        ArrayList<Task> loaded = new Storage(path, true).load();
+        assertEquals(20, loaded.size());
+        assertEquals("item 19", loaded.get(19).getDescription());
+    }
+
+    @Test
+    public void loadReplaysRotatedJournal() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        try (FileWriter writer = new FileWriter(path + ".journal.1")) {
+            writer.write(RecordChecksum.seal("+ | 0 | T | 0 | milk") + "\n");
+        }
+        try (FileWriter writer = new FileWriter(path + ".journal")) {
+            writer.write(RecordChecksum.seal("M | 0") + "\n");
+        }
+
+        ArrayList<Task> loaded = new Storage(path, true).load();
+        assertEquals(1, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+    }
+
+    @Test
+    public void flushWritesQueuedRecords() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, true);
+        storage.setDurability(Durability.BATCHED_FSYNC, 1000, 1000);
+        TaskList tasks = new TaskList(storage.load());
+
+        for (int i = 0; i < 10; i++) {
+            tasks.addTask(new ToDo("item " + i));
+            storage.recordAdd(tasks, i, tasks.getTask(i));
+        }
+        storage.flush();
+
+        assertEquals(10, new Storage(path, true).load().size());
+
+        tasks.addTask(new ToDo("item 10"));
+        storage.recordAdd(tasks, 10, tasks.getTask(10));
+        storage.setDurability(Durability.FLUSH_PER_COMMAND);
+        assertEquals(11, new Storage(path, true).load().size());
+        for (int i = 0; i < 100 && isJournalWriterRunning(); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(isJournalWriterRunning());
+    }
+
+    @Test
+    public void historyRecordsWaitForTheJournal() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        File historyFile = new File(path + ".history");
+        Storage storage = new Storage(path, true);
+        storage.setDurability(Durability.BATCHED_FSYNC, 60_000, 1000);
+        TaskList tasks = new TaskList(storage.load());
+        History history = History.load(storage.getHistoryLog(), 10, Long.MAX_VALUE);
+
+        AddCommand add = new AddCommand(new ToDo("milk"));
+        add.execute(tasks, new Ui(), storage);
+        history.record(new Revision(add, null, null));
+        tasks.markTask(0);
+        assertTrue(add.encode().startsWith("A | 0 | T | 0 | milk"));
+        assertTrue(new HistoryLog(historyFile).load().isEmpty());
+
+        storage.flush();
+        assertEquals(1, new Storage(path, true).load().size());
+        List<String> records = new HistoryLog(historyFile).load();
+        assertEquals(1, records.size());
+        assertTrue(records.get(0).startsWith("C | A | 0 | T | 0 | milk"));
+        storage.setDurability(Durability.FLUSH_PER_COMMAND);
+    }
+
+    @Test
+    public void undoneDeleteReturnsBetweenItsNeighbours() throws Exception {
+        Storage storage = new Storage(new File(tempDir, "cart.txt").getPath(), true);
+        TaskList tasks = new TaskList(storage.load());
+        for (String item : new String[] {"milk", "eggs", "flour"}) {
+            tasks.addTask(new ToDo(item));
+        }
+
+        DeleteCommand delete = new DeleteCommand(1);
+        delete.execute(tasks, new Ui(), storage);
+        tasks.addTaskAt(0, new ToDo("bread"));
+        tasks.addTaskAt(0, new ToDo("butter"));
+        delete.undo(tasks, new Ui(), storage);
+
+        assertEquals("eggs", tasks.getTask(3).getDescription());
+        assertEquals("flour", tasks.getTask(4).getDescription());
+    }
+
+    @Test
+    public void undoingSeveralVersionsJournalsTheirDifference() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, true);
+        VersionedTaskList tasks = new VersionedTaskList(storage.load());
+        History history = new History();
+        UndoableCommand[] commands = {new AddCommand(new ToDo("milk")), new AddCommand(new ToDo("eggs")),
+            new AddCommand(new ToDo("flour")), new MarkCommand(2, true), new DeleteCommand(1),
+            new AddCommand(new ToDo("bread"))};
+        for (UndoableCommand command : commands) {
+            PersistentTaskStore.Version before = tasks.version();
+            command.execute(tasks, new Ui(), storage);
+            history.record(new Revision(command, before, tasks.version()));
+        }
+
+        new UndoCommand(history, 4).execute(tasks, new Ui(), storage);
+        assertEquals("[milk, eggs]", describe(tasks));
+        assertEquals(describe(tasks), describe(new TaskList(new Storage(path, true).load())));
+
+        new RedoCommand(history, 3).execute(tasks, new Ui(), storage);
+        assertEquals("[milk, X flour]", describe(tasks));
+        assertEquals(describe(tasks), describe(new TaskList(new Storage(path, true).load())));
+    }
+
+    private static String describe(TaskList tasks) {
+        List<String> items = new ArrayList<>();
+        for (Task task : tasks.getTasks()) {
+            items.add((task.isDone() ? "X " : "") + task.getDescription());
+        }
+        return items.toString();
+    }
+
+    private static boolean isJournalWriterRunning() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().equals("journal-writer"));
+    }
+
+    @Test
+    public void chunkedLoaderKeepsFileOrder() throws Exception {
+        File file = new File(tempDir, "cart.txt");
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int i = 0; i < 50; i++) {
+                writer.write("T | " + (i % 2) + " | item " + i + "\n");
+            }
+            writer.write("D | 0 | milk | 2025-09-05 1800");
+        }
+
+        ArrayList<Task> serial = new Storage(file.getPath()).load();
+        ArrayList<Task> parallel = new ChunkedLoader(file, 8).load();
+
+        assertEquals(51, parallel.size());
+        for (int i = 0; i < serial.size(); i++) {
+            assertEquals(serial.get(i).toString(), parallel.get(i).toString());
+        }
+    }
+
+    @Test
+    public void loadSharesRepeatedDescriptions() throws Exception {
+        File file = new File(tempDir, "cart.txt");
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("T | 1 | bread\nT | 0 | bread\nD | 0 | bread | 2025-09-05 1800\n");
+        }
+
+        ArrayList<Task> tasks = new Storage(file.getPath()).load();
+
+        assertSame(tasks.get(0).getDescription(), tasks.get(1).getDescription());
+        assertSame(tasks.get(0).getDescription(), tasks.get(2).getDescription());
+    }
+
+    @Test
+    public void convertToBinaryAndBack() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new ToDo("oat milk"));
+        tasks.add(new Deadline("eggs", LocalDateTime.of(2025, 9, 5, 18, 0)));
+        tasks.add(new Event("sale", LocalDateTime.of(2025, 9, 1, 9, 0), LocalDateTime.of(2025, 9, 7, 21, 30)));
+        tasks.get(1).markAsDone();
+        new Storage(path).save(tasks);
+
+        new Storage(path).convert(StorageFormat.BINARY);
+        assertTrue(BinaryFormat.isBinary(new File(path)));
+        ArrayList<Task> binary = new Storage(path).load();
+
+        new Storage(path).convert(StorageFormat.TEXT);
+        assertFalse(BinaryFormat.isBinary(new File(path)));
+        ArrayList<Task> text = new Storage(path).load();
+
+        assertEquals(3, binary.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toString(), binary.get(i).toString());
+            assertEquals(tasks.get(i).toString(), text.get(i).toString());
+        }
+    }
+
+    @Test
+    public void binaryKeepsFarDatesAndSkipsBadLengths() throws Exception {
+        File file = new File(tempDir, "cart.bin");
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Deadline("honey", LocalDateTime.of(9999, 12, 31, 23, 59)));
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            BinaryFormat.write(out, tasks);
+        }
+        assertEquals(tasks.get(0).toString(), BinaryFormat.read(file).get(0).toString());
+
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+            out.writeByte('T');
+            out.writeByte(0);
+            out.writeLong(0);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+        assertEquals(1, BinaryFormat.read(file).size());
+    }
+
+    @Test
+    public void scannerMatchesLenientParser() throws Exception {
+        Task deadline = TaskLineScanner.scan("D | 1 | eggs | 2025-09-05 1800");
+        assertTrue(deadline instanceof Deadline);
+        assertTrue(deadline.isDone());
+        assertEquals(LocalDateTime.of(2025, 9, 5, 18, 0), ((Deadline) deadline).getDueDate());
+
+        Task event = TaskLineScanner.scan("E | 0 | sale | 2025-09-01 0900 | 2025-09-07 2130");
+        assertEquals(LocalDateTime.of(2025, 9, 7, 21, 30), ((Event) event).getEnd());
+
+        assertNull(TaskLineScanner.scan("T  |  1  | padded"));
+        assertEquals("padded", Storage.parseLine("T  |  1  | padded").getDescription());
+        assertNull(TaskLineScanner.scan("D | 0 | eggs | 2025-02-30 1800"));
+        assertEquals(LocalDateTime.of(2025, 2, 28, 18, 0),
+                ((Deadline) Storage.parseLine("D | 0 | eggs | 2025-02-30 1800")).getDueDate());
+    }
+
+    @Test
+    public void lazyStoreMatchesEagerLoad() throws Exception {
+        File file = new File(tempDir, "cart.txt");
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int i = 0; i < 1000; i++) {
+                writer.write("T | 0 | item " + i + "\n");
+            }
+        }
+
+        Storage storage = new Storage(file.getPath(), true);
+        TaskList tasks = new TaskList(storage.loadLazily(2));
+        assertEquals(1000, tasks.size());
+
+        tasks.markTask(700);
+        storage.recordMark(tasks, 700, true);
+        Task removed = tasks.deleteTask(0);
+        storage.recordDelete(tasks, 0, removed);
+        for (int i = 0; i < tasks.size(); i += 100) {
+            tasks.getTask(i);
+        }
+
+        assertTrue(tasks.getTask(699).isDone());
+        ArrayList<Task> eager = new Storage(file.getPath(), true).load();
+        assertEquals(999, eager.size());
+        for (int i = 0; i < eager.size(); i++) {
+            assertEquals(eager.get(i).toString(), tasks.getTask(i).toString());
+        }
+    }
+
+    @Test
+    public void lazyStoreSkipsCorruptedLinesLikeEagerLoad() throws Exception {
+        File file = new File(tempDir, "cart.txt");
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("T | 0 | milk\nnot a task\nT | 1 | eggs\nT | 0 | flour\n");
+        }
+
+        Storage storage = new Storage(file.getPath(), true);
+        TaskList tasks = new TaskList(storage.loadLazily(1));
+        assertEquals(3, tasks.size());
+        assertTrue(tasks.getTask(1).isDone());
+
+        Task removed = tasks.deleteTask(1);
+        storage.recordDelete(tasks, 1, removed);
+        ArrayList<Task> eager = new Storage(file.getPath(), true).load();
+        assertEquals(2, eager.size());
+        assertEquals("flour", eager.get(1).getDescription());
+    }
+
+    @Test
+    public void lazyStoreAnswersIdsWithoutReadingTasks() throws Exception {
+        File file = new File(tempDir, "cart.txt");
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int i = 0; i < 2000; i++) {
+                String id = i % 2 == 0 ? "" : " | @" + (i + 10);
+                writer.write("T | 0 | item " + i + id + "\n");
+            }
+        }
+
+        Storage storage = new Storage(file.getPath(), true);
+        PagedTaskStore store = (PagedTaskStore) storage.loadLazily(1);
+        TaskList tasks = new TaskList(store);
+        long id = tasks.getTaskId(1500);
+        tasks.markTask(1500);
+        tasks.addTask(new ToDo("milk"));
+        assertEquals(1, store.cachedPages());
+        assertEquals(1500, tasks.indexOfId(id, 0));
+
+        TaskList eager = new TaskList(new Storage(file.getPath(), true).load());
+        for (int i = 0; i < 2000; i += 250) {
+            assertEquals(eager.getTaskId(i), tasks.getTaskId(i));
+            assertEquals(eager.getTaskId(i), tasks.getTask(i).getId());
+        }
+    }
+
+    @Test
+    public void offsetIndexIsRebuiltWhenStale() throws Exception {
+        File file = new File(tempDir, "cart.txt");
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("T | 1 | milk\nT | 0 | eggs\n");
+        }
+
+        PagedTaskStore store = (PagedTaskStore) new Storage(file.getPath()).loadLazily(1);
+        assertTrue(OffsetIndex.sidecarOf(file).exists());
+        assertTrue(store.isDone(0));
+        assertFalse(store.isDone(1));
+
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write("T | 1 | bread\n");
+        }
+        store = (PagedTaskStore) new Storage(file.getPath()).loadLazily(1);
+        assertEquals(3, store.size());
+        assertTrue(store.isDone(2));
+        assertEquals("bread", store.get(2).getDescription());
+    }
+
+    @Test
+    public void lazyStoreRefusesLineChangedBehindItsIndex() throws Exception {
+        File file = new File(tempDir, "cart.txt");
+        try (FileWriter writer = new FileWriter(file)) {
+            for (int i = 0; i < 20000; i++) {
+                writer.write(String.format("T | 0 | item %05d%n", i));
+            }
+        }
+        new Storage(file.getPath()).loadLazily(1);
+        long modified = file.lastModified();
+        String text = new String(Files.readAllBytes(file.toPath()));
+        Files.write(file.toPath(), text.replace("T | 0 | item 10000", "X | 0 | item 10000").getBytes());
+        file.setLastModified(modified);
+
+        PagedTaskStore store = (PagedTaskStore) new Storage(file.getPath()).loadLazily(1);
+        assertEquals(20000, store.size());
+        assertThrows(UncheckedIOException.class, () -> store.get(10000));
+        assertFalse(OffsetIndex.sidecarOf(file).exists());
+
+        PagedTaskStore rebuilt = (PagedTaskStore) new Storage(file.getPath()).loadLazily(1);
+        assertEquals(19999, rebuilt.size());
+        assertEquals("item 10001", rebuilt.get(10000).getDescription());
+    }
+
+    @Test
+    public void shardedMutationRewritesOnlyItsShard() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, false, true);
+        TaskList tasks = new TaskList(storage.load());
+
+        tasks.addTask(new ToDo("milk"));
+        storage.recordAdd(tasks, 0, tasks.getTask(0));
+        tasks.addTask(new Deadline("eggs", LocalDateTime.of(2025, 9, 5, 18, 0)));
+        storage.recordAdd(tasks, 1, tasks.getTask(1));
+        tasks.addTask(new Event("sale", LocalDateTime.of(2025, 10, 1, 9, 0), LocalDateTime.of(2025, 10, 7, 21, 30)));
+        storage.recordAdd(tasks, 2, tasks.getTask(2));
+        tasks.addTaskAt(1, new ToDo("bread"));
+        storage.recordAdd(tasks, 1, tasks.getTask(1));
+
+        File shardDirectory = new File(path + ".shards");
+        File todoShard = new File(shardDirectory, "T.txt");
+        String todos = new String(Files.readAllBytes(todoShard.toPath()));
+        tasks.markTask(2);
+        storage.recordMark(tasks, 2, true);
+        assertEquals(todos, new String(Files.readAllBytes(todoShard.toPath())));
+
+        ArrayList<Task> loaded = new Storage(path, false, true).load();
+        assertEquals(4, loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            assertEquals(tasks.getTask(i).toString(), loaded.get(i).toString());
+        }
+
+        List<Task> september = storage.loadMonths(YearMonth.of(2025, 9), YearMonth.of(2025, 9));
+        assertEquals(1, september.size());
+        assertEquals("eggs", september.get(0).getDescription());
+    }
+
+    @Test
+    public void shardsFollowCopiedTasksById() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, false, true);
+        VersionedTaskList tasks = new VersionedTaskList(storage.load());
+        for (String item : new String[] {"milk", "eggs", "flour"}) {
+            tasks.addTask(new ToDo(item));
+            storage.recordAdd(tasks, tasks.size() - 1, tasks.getTask(tasks.size() - 1));
+        }
+
+        tasks.markTask(1);
+        storage.recordMark(tasks, 1, true);
+        Task eggs = tasks.getTask(1);
+        tasks.deleteTask(1);
+        storage.recordDelete(tasks, 1, eggs);
+        tasks.addTaskAt(1, new ToDo("bread"));
+        storage.recordAdd(tasks, 1, tasks.getTask(1));
+
+        assertEquals(describe(tasks), describe(new TaskList(new Storage(path, false, true).load())));
+    }
+
+    @Test
+    public void replayTruncatesTornJournal() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.load());
+        for (int i = 0; i < 3; i++) {
+            tasks.addTask(new ToDo("item " + i));
+            storage.recordAdd(tasks, i, tasks.getTask(i));
+        }
+
+        File journal = new File(path + ".journal");
+        long intactLength = journal.length();
+        try (FileWriter writer = new FileWriter(journal, true)) {
+            writer.write("+ | 3 | T | 0 | item 3 | #00000000\n+ | 4 | T | 0 | item 4\n");
+        }
+
+        ArrayList<Task> loaded = new Storage(path, true).load();
+        assertEquals(3, loaded.size());
+        assertEquals(intactLength, journal.length());
+    }
+
+    @Test
+    public void replayStopsAtUnsealedTornRecord() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.load());
+        tasks.addTask(new ToDo("milk"));
+        storage.recordAdd(tasks, 0, tasks.getTask(0));
+
+        File journal = new File(path + ".journal");
+        long intactLength = journal.length();
+        try (FileWriter writer = new FileWriter(journal, true)) {
+            writer.write("+ | 1 | T | 0 | chocol\n");
+        }
+
+        ArrayList<Task> loaded = new Storage(path, true).load();
+        assertEquals(1, loaded.size());
+        assertEquals(intactLength, journal.length());
+    }
+
+    @Test
+    public void saveReplacesFileAndSkipsDamagedLines() throws Exception {
+        File file = new File(tempDir, "cart.txt");
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new ToDo("milk"));
+        tasks.add(new ToDo("eggs"));
+        new Storage(file.getPath()).save(tasks);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        String text = new String(Files.readAllBytes(file.toPath()));
+        Files.write(file.toPath(), text.replace("eggs", "eggz").getBytes());
+
+        ArrayList<Task> loaded = new Storage(file.getPath()).load();
+        assertEquals(1, loaded.size());
+        assertEquals("milk", loaded.get(0).getDescription());
+    }
+
+    @Test
+    public void idsSurviveSaveAndJournal() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.load());
+        tasks.addTask(new ToDo("milk"));
+        storage.recordAdd(tasks, 0, tasks.getTask(0));
+        tasks.addTask(new Deadline("eggs", LocalDateTime.of(2025, 9, 5, 18, 0)));
+        storage.recordAdd(tasks, 1, tasks.getTask(1));
+
+        ArrayList<Task> replayed = new Storage(path, true).load();
+        assertEquals(tasks.getTask(1).getId(), replayed.get(1).getId());
+
+        storage.save(tasks.getTasks());
+        ArrayList<Task> saved = new Storage(path, true).load();
+        assertEquals(tasks.getTask(0).getId(), saved.get(0).getId());
+
+        new Storage(path).convert(StorageFormat.BINARY);
+        ArrayList<Task> binary = new Storage(path).load();
+        assertEquals(tasks.getTask(1).getId(), binary.get(1).getId());
+        assertEquals("eggs", binary.get(1).getDescription());
+    }
+
+    @Test
+    public void batchIsJournaledWhenItEnds() throws Exception {
+        String path = new File(tempDir, "cart.txt").getPath();
+        Storage storage = new Storage(path, true);
+        TaskList tasks = new TaskList(storage.load());
+        for (int i = 0; i < 5; i++) {
+            tasks.addTask(new ToDo("item " + i));
+            storage.recordAdd(tasks, i, tasks.getTask(i));
+        }
+
+        File journal = new File(path + ".journal");
+        long lengthBefore = journal.length();
+        List<Task> removed = tasks.deleteTasks(new int[] {1, 3});
+        storage.beginBatch();
+        storage.recordDelete(tasks, 3, removed.get(1));
+        storage.recordDelete(tasks, 1, removed.get(0));
+        assertEquals(lengthBefore, journal.length());
+        storage.endBatch(tasks);
+
+        ArrayList<Task> loaded = new Storage(path, true).load();
+        assertEquals(3, loaded.size());
+        assertEquals("item 2", loaded.get(1).getDescription());
+        assertEquals("item 4", loaded.get(2).getDescription());
+    }
+
+    @Test
+    public void loadedHistoryKeepsIdsOfDeletedTasks() throws Exception {
+        File file = new File(tempDir, "cart.txt.history");
+        HistoryLog log = new HistoryLog(file);
+        log.append("C | A | 0 | T | 0 | milk | @1");
+        log.append("C | D | 1 | 1 | 0 | T | 0 | eggs | @9");
+        History history = History.load(log, 10, Long.MAX_VALUE);
+        assertEquals(9, history.lastTaskId());
+
+        ArrayList<Task> loaded = new ArrayList<>();
+        loaded.add(Storage.parseTask("T | 0 | milk | @1"));
+        TaskList tasks = new TaskList(loaded);
+        tasks.reserveIds(history.lastTaskId());
+        tasks.addTask(new ToDo("bread"));
+        assertEquals(10, tasks.getTaskId(1));
+    }
+
+    @Test
+    public void historyLogStopsAtDamagedRecord() throws Exception {
+        File file = new File(tempDir, "cart.txt.history");
+        HistoryLog log = new HistoryLog(file);
+        log.append("C | A | 0 | T | 0 | milk | @1");
+        log.append("U");
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write("R | #00000000" + System.lineSeparator() + "U" + System.lineSeparator());
+        }
+
+        HistoryLog reopened = new HistoryLog(file);
+        assertEquals(List.of("C | A | 0 | T | 0 | milk | @1", "U"), reopened.load());
+        reopened.rewrite(List.of("C | A | 0 | T | 0 | milk | @1"));
+        assertEquals(1, reopened.size());
+        assertEquals(1, new HistoryLog(file).load().size());
+
+        Task task = Storage.parseTask(Storage.formatTask(
+                new Deadline("eggs", LocalDateTime.of(2025, 9, 5, 18, 0))));
+        assertEquals("eggs", task.getDescription());
+    }
+}
@@ -4,6 +4,7 @@ import error.JimmyTimmyException;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 
 public class TaskListTest {
@@ -34,4 +35,403 @@ public class TaskListTest {
         tasks.unmarkTask(0);
         assertFalse(tasks.getTask(0).isDone);
     }
+
+    @Test
+    public void findTasksFollowsAddsAndDeletes() throws JimmyTimmyException {
+        task.TaskList tasks = new task.TaskList();
+        tasks.addTask(new task.ToDo("Oat milk"));
+        tasks.addTask(new task.ToDo("Bread"));
+        assertEquals(1, tasks.findTasks("MILK").size());
+
+        tasks.addTask(new task.ToDo("Milk chocolate"));
+        assertEquals(2, tasks.findTasks("milk").size());
+        assertEquals(1, tasks.findTasks("milk chocolate").size());
+
+        tasks.deleteTask(0);
+        assertEquals("Milk chocolate", tasks.findTasks("milk").get(0).getDescription());
+        assertTrue(tasks.findTasks("oat").isEmpty());
+    }
+
+    @Test
+    public void findTasksMatchesSubstrings() {
+        task.TaskList tasks = new task.TaskList();
+        tasks.addTask(new task.ToDo("Oatmilk"));
+        tasks.addTask(new task.ToDo("Milkshake"));
+        tasks.addTask(new task.ToDo("Bread"));
+
+        assertEquals(2, tasks.findTasks("MILK").size());
+        assertEquals("Oatmilk", tasks.findTasks("tmi").get(0).getDescription());
+        assertEquals(1, tasks.findTasks("ea").size());
+        assertTrue(tasks.findTasks("milk bread").isEmpty());
+    }
+
+    @Test
+    public void findTasksKeepsListOrderAfterMarkAndReinsert() throws JimmyTimmyException {
+        ArrayList<Task> loaded = new ArrayList<>();
+        loaded.add(new task.ToDo("Oat milk"));
+        loaded.add(new task.ToDo("Soy milk"));
+        loaded.add(new task.ToDo("Rice milk"));
+        task.VersionedTaskList tasks = new task.VersionedTaskList(loaded);
+        assertEquals(3, tasks.findTasks("milk").size());
+
+        tasks.markTask(0);
+        Task removed = tasks.deleteTask(1);
+        tasks.addTaskAt(1, removed);
+
+        ArrayList<Task> found = tasks.findTasks("milk");
+        assertEquals("Oat milk", found.get(0).getDescription());
+        assertEquals("Soy milk", found.get(1).getDescription());
+        assertEquals("Rice milk", found.get(2).getDescription());
+    }
+
+    @Test
+    public void dueDateQueriesSkipDoneDeadlines() throws JimmyTimmyException {
+        task.TaskList tasks = new task.TaskList();
+        tasks.addTask(new task.Deadline("Milk", LocalDateTime.of(2025, 9, 18, 12, 0)));
+        tasks.addTask(new task.ToDo("Bread"));
+        tasks.addTask(new task.Deadline("Eggs", LocalDateTime.of(2025, 9, 5, 9, 0)));
+        assertEquals("Eggs", tasks.findNextDue().get(0).getDescription());
+
+        tasks.markTask(2);
+        assertEquals("Milk", tasks.findNextDue().get(0).getDescription());
+        assertTrue(tasks.findDueBefore(LocalDateTime.of(2025, 9, 18, 12, 0)).isEmpty());
+
+        tasks.unmarkTask(2);
+        tasks.addTask(new task.Deadline("Cheese", LocalDateTime.of(2025, 9, 30, 0, 0)));
+        assertEquals(2, tasks.findDueBetween(LocalDateTime.of(2025, 9, 5, 9, 0),
+                LocalDateTime.of(2025, 9, 18, 12, 0)).size());
+
+        tasks.deleteTask(0);
+        assertEquals(1, tasks.findDueBefore(LocalDateTime.of(2025, 9, 30, 0, 0)).size());
+    }
+
+    @Test
+    public void eventQueriesFindOverlappingPromotions() throws JimmyTimmyException {
+        task.TaskList tasks = new task.TaskList();
+        tasks.addTask(new task.Event("Dairy sale", LocalDateTime.of(2025, 9, 1, 9, 0), LocalDateTime.of(2025, 9, 7, 21, 0)));
+        tasks.addTask(new task.Event("Bakery week", LocalDateTime.of(2025, 9, 6, 0, 0), LocalDateTime.of(2025, 9, 12, 0, 0)));
+        tasks.addTask(new task.Event("Fruit day", LocalDateTime.of(2025, 9, 20, 8, 0), LocalDateTime.of(2025, 9, 20, 20, 0)));
+
+        assertEquals(1, tasks.findEventsActiveAt(LocalDateTime.of(2025, 9, 5, 12, 0)).size());
+        assertEquals(2, tasks.findEventsActiveAt(LocalDateTime.of(2025, 9, 7, 21, 0)).size());
+        assertEquals(3, tasks.findEventsOverlapping(LocalDateTime.of(2025, 9, 7, 0, 0),
+                LocalDateTime.of(2025, 9, 20, 8, 0)).size());
+
+        tasks.deleteTask(0);
+        assertEquals("Bakery week", tasks.findEventsActiveAt(LocalDateTime.of(2025, 9, 7, 21, 0)).get(0).getDescription());
+        assertTrue(tasks.findEventsActiveAt(LocalDateTime.of(2025, 9, 15, 0, 0)).isEmpty());
+    }
+
+    @Test
+    public void persistentStoreKeepsPositionalOrder() throws JimmyTimmyException {
+        ArrayList<Task> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(new task.ToDo("item " + i));
+        }
+        task.TaskList tasks = new task.TaskList(new PersistentTaskStore(items));
+
+        Task removed = tasks.deleteTask(0);
+        tasks.deleteTask(49);
+        tasks.addTaskAt(10, removed);
+        tasks.markTask(10);
+
+        assertEquals(99, tasks.size());
+        assertEquals("item 1", tasks.getTask(0).getDescription());
+        assertTrue(tasks.getTask(10).isDone());
+        assertEquals("item 49", tasks.getTask(49).getDescription());
+        assertEquals("item 51", tasks.getTask(50).getDescription());
+        int i = 0;
+        for (Task task : tasks.getTasks()) {
+            assertEquals(tasks.getTask(i++), task);
+        }
+    }
+
+    @Test
+    public void columnarStoreRebuildsTasks() throws JimmyTimmyException {
+        ArrayList<Task> items = new ArrayList<>();
+        items.add(new task.ToDo("Bread"));
+        items.add(new task.Deadline("Milk", LocalDateTime.of(2025, 3, 1, 12, 30)));
+        items.add(new task.Event("Fruit fair " + "ä".repeat(100),
+                LocalDateTime.of(2025, 3, 1, 9, 0), LocalDateTime.of(2025, 3, 2, 18, 0)));
+        task.TaskList tasks = new task.TaskList(new task.ColumnarTaskStore(items));
+
+        Task milk = tasks.getTask(1);
+        assertEquals(milk, tasks.getTask(1));
+        assertEquals(items.get(1).toString(), milk.toString());
+        assertEquals(items.get(2).toString(), tasks.getTask(2).toString());
+
+        tasks.markTask(1);
+        tasks.deleteTask(0);
+        tasks.addTaskAt(1, new task.ToDo("Eggs"));
+        assertTrue(tasks.getTask(0).isDone());
+        assertEquals("Eggs", tasks.getTask(1).getDescription());
+        assertEquals(1, tasks.findEventsActiveAt(LocalDateTime.of(2025, 3, 2, 12, 0)).size());
+        assertEquals(1, tasks.countTasks(true));
+    }
+
+    @Test
+    public void offHeapStoreSearchesStoredDescriptions() throws JimmyTimmyException {
+        ArrayList<Task> items = new ArrayList<>();
+        items.add(new task.ToDo("Oat MILK"));
+        items.add(new task.ToDo("Ｍｉｌｋ powder"));
+        items.add(new task.ToDo("Bread"));
+        task.TaskList tasks = new task.TaskList(new task.ColumnarTaskStore(items, true));
+        tasks.addTask(new task.ToDo("Soy milk"));
+        tasks.deleteTask(2);
+
+        ArrayList<Task> matches = tasks.findTasks("milk");
+        assertEquals(3, matches.size());
+        assertEquals("Ｍｉｌｋ powder", matches.get(1).getDescription());
+        assertEquals("Soy milk", matches.get(2).getDescription());
+        assertTrue(tasks.findTasks("bread").isEmpty());
+    }
+
+    @Test
+    public void findPendingDuplicateIgnoresDoneTasks() throws JimmyTimmyException {
+        task.TaskList tasks = new task.TaskList();
+        Task milk = new task.ToDo("Milk");
+        tasks.addTask(milk);
+        tasks.addTask(new task.Deadline("milk", LocalDateTime.of(2025, 3, 1, 12, 0)));
+
+        assertEquals(milk, tasks.findPendingDuplicate(new task.ToDo("MILK")));
+        assertNull(tasks.findPendingDuplicate(milk));
+        assertNull(tasks.findPendingDuplicate(new task.Deadline("milk", LocalDateTime.of(2025, 3, 2, 12, 0))));
+
+        tasks.markTask(0);
+        assertNull(tasks.findPendingDuplicate(new task.ToDo("milk")));
+        tasks.unmarkTask(0);
+        tasks.deleteTask(0);
+        assertNull(tasks.findPendingDuplicate(new task.ToDo("milk")));
+    }
+
+    @Test
+    public void concurrentListSnapshotsStayFixed() throws Exception {
+        ArrayList<Task> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(new task.ToDo("item " + i));
+        }
+        task.TaskList tasks = new task.ConcurrentTaskList(items);
+        java.util.List<Task> before = tasks.getTasks();
+
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < 1000; i++) {
+                int count = 0;
+                for (Task ignored : tasks.snapshot()) {
+                    count++;
+                }
+                assertTrue(count >= 50);
+                tasks.findTasks("item 1");
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 50; i++) {
+            tasks.deleteTask(0);
+            tasks.addTask(new task.ToDo("new " + i));
+            tasks.deleteTask(tasks.size() - 1);
+        }
+        reader.join();
+
+        assertEquals(100, before.size());
+        assertEquals("item 0", before.get(0).getDescription());
+        assertEquals(50, tasks.size());
+        assertEquals("item 50", tasks.getTask(0).getDescription());
+        assertEquals(10, tasks.findTasks("item 5").size());
+
+        java.util.List<Task> unmarked = tasks.snapshot();
+        tasks.markTask(0);
+        assertTrue(tasks.getTask(0).isDone());
+        assertFalse(unmarked.get(0).isDone());
+        assertEquals(tasks.getTaskId(0), unmarked.get(0).getId());
+        assertEquals(1, tasks.countTasks(true));
+    }
+
+    @Test
+    public void idsStayWithTheirTasks() throws JimmyTimmyException {
+        ArrayList<Task> loaded = new ArrayList<>();
+        Task saved = new task.ToDo("Saved");
+        saved.setId(7);
+        loaded.add(saved);
+        loaded.add(new task.ToDo("Legacy"));
+        task.TaskList tasks = new task.TaskList(loaded);
+
+        Task added = new task.ToDo("Added");
+        tasks.addTask(added);
+        assertEquals(7, tasks.getTaskId(0));
+        assertEquals(8, tasks.getTaskId(1));
+        assertEquals(9, added.getId());
+
+        tasks.deleteTask(0);
+        assertEquals(added, tasks.findById(9));
+        assertEquals(1, tasks.indexOfId(9, 2));
+        assertNull(tasks.findById(7));
+        assertEquals(-1, tasks.indexOfId(7, 0));
+    }
+
+    @Test
+    public void idIndexFollowsMovedTasks() throws JimmyTimmyException {
+        ArrayList<Task> loaded = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            loaded.add(new task.ToDo("item " + i));
+        }
+        for (task.TaskList tasks : java.util.List.of(new task.TaskList(loaded),
+                new task.VersionedTaskList(loaded))) {
+            assertEquals(250, tasks.indexOfId(tasks.getTaskId(250), -1));
+
+            tasks.addTaskAt(0, new task.ToDo("first"));
+            tasks.deleteTasks(new int[] {10, 20, 30});
+            tasks.deleteTask(400);
+            java.util.Random random = new java.util.Random(3);
+            for (int i = 0; i < 200; i++) {
+                int index = random.nextInt(tasks.size());
+                long id = tasks.getTaskId(index);
+                assertEquals(index, tasks.indexOfId(id, (index + 1) % tasks.size()));
+                assertEquals(tasks.getTask(index), tasks.findById(id));
+            }
+        }
+    }
+
+    @Test
+    public void statusCountsFollowChanges() throws JimmyTimmyException {
+        ArrayList<Task> loaded = new ArrayList<>();
+        Task bread = new task.ToDo("Bread");
+        bread.markAsDone();
+        loaded.add(bread);
+        loaded.add(new task.Deadline("Milk", LocalDateTime.of(2025, 3, 1, 12, 0)));
+        task.TaskList tasks = new task.TaskList(loaded);
+
+        assertEquals(1, tasks.countTasks(true));
+        assertEquals(1, tasks.countTasks('D', false));
+
+        tasks.addTaskAt(0, new task.Event("Sale",
+                LocalDateTime.of(2025, 3, 1, 9, 0), LocalDateTime.of(2025, 3, 2, 9, 0)));
+        tasks.markTask(2);
+        assertEquals(java.util.List.of(1, 2), tasks.findByStatus(true));
+        assertEquals(java.util.List.of(0), tasks.findByStatus(false));
+        assertEquals(1, tasks.countTasks('D', true));
+
+        tasks.deleteTask(1);
+        tasks.unmarkTask(1);
+        assertEquals(0, tasks.countTasks(true));
+        assertEquals(2, tasks.countTasks(false));
+        assertEquals(0, tasks.countTasks('T', false));
+    }
+
+    @Test
+    public void versionedListRestoresEarlierVersions() throws JimmyTimmyException {
+        ArrayList<Task> loaded = new ArrayList<>();
+        loaded.add(new task.ToDo("Eggs"));
+        loaded.add(new task.ToDo("Flour"));
+        task.VersionedTaskList tasks = new task.VersionedTaskList(loaded);
+        PersistentTaskStore.Version start = tasks.version();
+
+        tasks.markTask(0);
+        tasks.deleteTask(1);
+        tasks.addTask(new task.ToDo("Sugar"));
+        PersistentTaskStore.Version end = tasks.version();
+        assertEquals(1, tasks.findTasks("sugar").size());
+
+        tasks.restore(start);
+        assertEquals(2, tasks.size());
+        assertFalse(tasks.getTask(0).isDone());
+        assertEquals("Flour", tasks.getTask(1).getDescription());
+        assertEquals(0, tasks.findTasks("sugar").size());
+        assertEquals(0, tasks.countTasks(true));
+
+        tasks.restore(end);
+        assertTrue(tasks.getTask(0).isDone());
+        assertEquals("Sugar", tasks.getTask(1).getDescription());
+        assertEquals(1, tasks.countTasks(true));
+    }
+
+    @Test
+    public void versionedListUpdatesIndexesOnRestore() throws JimmyTimmyException {
+        ArrayList<Task> loaded = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            loaded.add(i % 2 == 0 ? new task.ToDo("item " + i)
+                    : new task.Deadline("milk " + i, LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i)));
+        }
+        task.VersionedTaskList tasks = new task.VersionedTaskList(loaded);
+        java.util.List<PersistentTaskStore.Version> versions = new ArrayList<>();
+        java.util.Random random = new java.util.Random(7);
+        for (int i = 0; i < 300; i++) {
+            versions.add(tasks.version());
+            int index = random.nextInt(tasks.size());
+            switch (random.nextInt(3)) {
+                case 0:
+                    tasks.markTask(index);
+                    break;
+                case 1:
+                    tasks.addTaskAt(index, new task.ToDo("item new " + i));
+                    break;
+                default:
+                    tasks.deleteTask(index);
+            }
+            tasks.countTasks(true);
+            tasks.findNextDue();
+            tasks.findTasks("item");
+        }
+
+        for (int i = 0; i < 20; i++) {
+            tasks.restore(versions.get(random.nextInt(versions.size())));
+            task.TaskList rebuilt = new task.TaskList(new ArrayList<>(tasks.getTasks()));
+            assertEquals(rebuilt.findByStatus(true), tasks.findByStatus(true));
+            assertEquals(rebuilt.countTasks('D', false), tasks.countTasks('D', false));
+            assertEquals(rebuilt.findNextDue(), tasks.findNextDue());
+            assertEquals(rebuilt.findTasks("item"), tasks.findTasks("item"));
+        }
+    }
+
+    @Test
+    public void deleteTasksRemovesEverySelectedTask() throws JimmyTimmyException {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 5; i++) {
+            tasks.addTask(new task.ToDo("item " + i));
+        }
+        tasks.markTask(4);
+        assertThrows(JimmyTimmyException.class, () -> tasks.deleteTasks(new int[] {0, 5}));
+        assertEquals(5, tasks.size());
+
+        java.util.List<Task> removed = tasks.deleteTasks(new int[] {0, 2, 4});
+        assertEquals("item 2", removed.get(1).getDescription());
+        assertEquals(2, tasks.size());
+        assertEquals("item 3", tasks.getTask(1).getDescription());
+        assertEquals(0, tasks.countTasks(true));
+        assertEquals(java.util.List.of(0, 1), tasks.findByStatus(false));
+    }
+
+    @Test
+    public void deleteTasksCompactsEveryStore() throws JimmyTimmyException {
+        ArrayList<Task> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add(new task.ToDo("item " + i));
+        }
+        for (TaskList tasks : java.util.List.of(new TaskList(new ArrayList<>(items)),
+                new TaskList(new task.ColumnarTaskStore(items, false)))) {
+            for (int i = 0; i < 200; i += 3) {
+                tasks.markTask(i);
+            }
+            assertEquals(67, tasks.countTasks(true));
+
+            int[] selected = java.util.stream.IntStream.range(0, 200)
+                    .filter(i -> i % 5 == 0 || i > 190)
+                    .toArray();
+            tasks.deleteTasks(selected);
+
+            java.util.List<Integer> done = new ArrayList<>();
+            int position = 0;
+            for (int i = 0; i < 200; i++) {
+                if (i % 5 == 0 || i > 190) {
+                    continue;
+                }
+                assertEquals("item " + i, tasks.getTask(position).getDescription());
+                if (i % 3 == 0) {
+                    done.add(position);
+                }
+                position++;
+            }
+            assertEquals(position, tasks.size());
+            assertEquals(done, tasks.findByStatus(true));
+            assertEquals(done.size(), tasks.countTasks(true));
+        }
+    }
 }